@@ -1,13 +1,28 @@
 package com.example.library;
 
+import com.example.library.batch.BatchResult;
+import com.example.library.batch.BatchRunner;
 import com.example.library.model.Book;
 import com.example.library.model.LoanRecord;
 import com.example.library.model.User;
 import com.example.library.persistence.LibraryStorage;
+import com.example.library.service.AuthorFacet;
 import com.example.library.service.Library;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
 import java.util.List;
 import java.util.Optional;
+import java.util.OptionalInt;
 import java.util.Scanner;
 
 /**
@@ -19,13 +34,63 @@ public class LibraryApplication {
     private final Scanner scanner;
 
     public static void main(String[] args) {
+        if (args.length > 0 && args[0].equals("--batch")) {
+            System.exit(runBatch(args));
+        }
         new LibraryApplication().run();
     }
 
+    /**
+     * Runs {@code --batch <file|-> [--checkpoint=N]}: commands are read from the file (or stdin for {@code -}),
+     * results go to stdout and the timing summary to stderr. Returns the process exit code.
+     */
+    private static int runBatch(String[] args) {
+        if (args.length < 2) {
+            System.err.println("Usage: --batch <file|-> [--checkpoint=N]");
+            return 2;
+        }
+        int checkpoint = 10000;
+        for (int i = 2; i < args.length; i++) {
+            if (args[i].startsWith("--checkpoint=")) {
+                String value = args[i].substring("--checkpoint=".length());
+                try {
+                    checkpoint = Integer.parseInt(value);
+                } catch (NumberFormatException ex) {
+                    checkpoint = -1;
+                }
+                if (checkpoint < 0) {
+                    System.err.println("Invalid checkpoint interval: " + value);
+                    System.err.println("Usage: --batch <file|-> [--checkpoint=N]");
+                    return 2;
+                }
+            } else {
+                System.err.println("Unknown option: " + args[i]);
+                return 2;
+            }
+        }
+        LibraryStorage storage = LibraryStorage.defaultStorage();
+        BatchRunner runner = new BatchRunner(storage.loadOrCreate(), storage, checkpoint);
+        BufferedWriter output = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), 1 << 16);
+        try (BufferedReader input = args[1].equals("-")
+                ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8), 1 << 16)
+                : Files.newBufferedReader(Paths.get(args[1]), StandardCharsets.UTF_8)) {
+            BatchResult result = runner.run(input, output);
+            System.err.println("Batch complete: " + result);
+            storage.getLastLoadStats().ifPresent(stats -> System.err.println("Loaded " + stats));
+            storage.getLastSaveStats().ifPresent(stats -> System.err.println("Saved " + stats));
+            return result.getFailed() == 0 ? 0 : 1;
+        } catch (IOException ex) {
+            System.err.println("Batch failed: " + ex.getMessage());
+            storage.getLastLoadStats().ifPresent(stats -> System.err.println("Loaded " + stats));
+            return 2;
+        }
+    }
+
     public LibraryApplication() {
         this.storage = LibraryStorage.defaultStorage();
         this.library = storage.loadOrCreate();
         this.scanner = new Scanner(System.in);
+        storage.getLastLoadStats().ifPresent(stats -> System.out.println("Loaded " + stats));
     }
 
     private void run() {
@@ -72,7 +137,20 @@ public class LibraryApplication {
                         handleListLoans();
                         break;
                     case "13":
+                        handleBrowseByAuthor();
+                        break;
+                    case "14":
+                        handleFindUser();
+                        break;
+                    case "15":
+                        System.out.println(library.getCirculationStats());
+                        break;
+                    case "16":
+                        handleBookHistory();
+                        break;
+                    case "17":
                         persist();
+                        storage.getLastSaveStats().ifPresent(stats -> System.out.println("Saved " + stats));
                         System.out.println("Data saved. Goodbye!");
                         running = false;
                         break;
@@ -100,7 +178,11 @@ public class LibraryApplication {
         System.out.println("10. Borrow book");
         System.out.println("11. Return book");
         System.out.println("12. View active loans");
-        System.out.println("13. Save & exit");
+        System.out.println("13. Browse by author");
+        System.out.println("14. Find user");
+        System.out.println("15. Circulation stats");
+        System.out.println("16. Book history on a date");
+        System.out.println("17. Save & exit");
         System.out.print("Choose an option: ");
     }
 
@@ -167,6 +249,26 @@ public class LibraryApplication {
         results.forEach(book -> System.out.printf("ID: %d | %s%n", book.getId(), book));
     }
 
+    private void handleBrowseByAuthor() {
+        System.out.println("-- Browse by Author --");
+        List<AuthorFacet> authors = library.listAuthorFacets();
+        if (authors.isEmpty()) {
+            System.out.println("No books registered.");
+            return;
+        }
+        authors.forEach(System.out::println);
+        String author = promptOptional("Author to list (blank to skip)");
+        if (author.isEmpty()) {
+            return;
+        }
+        List<Book> books = library.listBooksByAuthor(author);
+        if (books.isEmpty()) {
+            System.out.println("No books by this author.");
+            return;
+        }
+        books.forEach(book -> System.out.printf("ID: %d | %s%n", book.getId(), book));
+    }
+
     private void handleAddUser() {
         System.out.println("-- Add User --");
         String type = prompt("Type (student/professor)").toLowerCase();
@@ -225,6 +327,22 @@ public class LibraryApplication {
         users.forEach(user -> System.out.printf("ID: %d | %s%n", user.getId(), user));
     }
 
+    private void handleFindUser() {
+        System.out.println("-- Find User --");
+        String query = prompt("Email or name prefix");
+        Optional<User> byEmail = library.findUserByEmail(query);
+        if (byEmail.isPresent()) {
+            System.out.printf("ID: %d | %s%n", byEmail.get().getId(), byEmail.get());
+            return;
+        }
+        List<User> users = library.searchUsersByName(query);
+        if (users.isEmpty()) {
+            System.out.println("No users match your search.");
+            return;
+        }
+        users.forEach(user -> System.out.printf("ID: %d | %s%n", user.getId(), user));
+    }
+
     private void handleBorrowBook() {
         System.out.println("-- Borrow Book --");
         int userId = promptInt("User ID", 1);
@@ -260,6 +378,35 @@ public class LibraryApplication {
                 loan.getUserId(), loan.getBookId(), loan.getLoanDate(), loan.getDueDate()));
     }
 
+    private void handleBookHistory() {
+        System.out.println("-- Book History --");
+        int bookId = promptInt("Book ID", 1);
+        LocalDate date;
+        try {
+            date = LocalDate.parse(prompt("Date (yyyy-mm-dd)"));
+        } catch (DateTimeParseException ex) {
+            System.out.println("Please enter a date such as 2024-03-03.");
+            return;
+        }
+        library.getHistoryStart().ifPresent(start -> {
+            if (date.isBefore(start.atZone(ZoneId.systemDefault()).toLocalDate())) {
+                System.out.println("Note: history is only recorded from " + start.atZone(ZoneId.systemDefault()).toLocalDate() + ".");
+            }
+        });
+        OptionalInt available = library.getAvailableCopiesAt(bookId, date.plusDays(1).atStartOfDay(ZoneId.systemDefault()).toInstant().minusMillis(1));
+        if (available.isPresent()) {
+            System.out.println("Available copies at end of day: " + available.getAsInt());
+        } else {
+            System.out.println("Book was not in the catalogue at end of day.");
+        }
+        List<Integer> holders = library.getHoldersOn(bookId, date);
+        if (holders.isEmpty()) {
+            System.out.println("No one had this book on loan that day.");
+            return;
+        }
+        System.out.println("Held during the day by user IDs: " + holders);
+    }
+
     private String prompt(String label) {
         System.out.print(label + ": ");
         String input = scanner.nextLine().trim();
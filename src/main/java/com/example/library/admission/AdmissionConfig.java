@@ -0,0 +1,72 @@
+package com.example.library.admission;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Limits enforced by the {@link AdmissionController}.
+ * <p>
+ * Per-user limits are keyed by {@code User.getType()}; users of a type without an explicit limit get
+ * the default. Staff operations skip the token buckets and may use {@code staffReserve} queue slots
+ * beyond {@code queueCapacity}, so the desk keeps working while members are being shed.
+ */
+public class AdmissionConfig {
+    private RateLimit globalLimit = new RateLimit(2000, 4000);
+    private RateLimit defaultUserLimit = new RateLimit(2, 5);
+    private final Map<String, RateLimit> userTypeLimits = new HashMap<>();
+    private int queueCapacity = 1000;
+    private int staffReserve = 100;
+
+    public AdmissionConfig() {
+        userTypeLimits.put("Student", new RateLimit(5, 10));
+        userTypeLimits.put("Professor", new RateLimit(10, 20));
+    }
+
+    public AdmissionConfig withGlobalLimit(RateLimit limit) {
+        this.globalLimit = Objects.requireNonNull(limit, "limit");
+        return this;
+    }
+
+    public AdmissionConfig withDefaultUserLimit(RateLimit limit) {
+        this.defaultUserLimit = Objects.requireNonNull(limit, "limit");
+        return this;
+    }
+
+    public AdmissionConfig withUserTypeLimit(String userType, RateLimit limit) {
+        userTypeLimits.put(Objects.requireNonNull(userType, "userType"), Objects.requireNonNull(limit, "limit"));
+        return this;
+    }
+
+    public AdmissionConfig withQueueCapacity(int queueCapacity) {
+        if (queueCapacity <= 0) {
+            throw new IllegalArgumentException("Queue capacity must be positive");
+        }
+        this.queueCapacity = queueCapacity;
+        return this;
+    }
+
+    public AdmissionConfig withStaffReserve(int staffReserve) {
+        if (staffReserve < 0) {
+            throw new IllegalArgumentException("Staff reserve cannot be negative");
+        }
+        this.staffReserve = staffReserve;
+        return this;
+    }
+
+    public RateLimit getGlobalLimit() {
+        return globalLimit;
+    }
+
+    public RateLimit getUserLimit(String userType) {
+        return userTypeLimits.getOrDefault(userType, defaultUserLimit);
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public int getStaffReserve() {
+        return staffReserve;
+    }
+}
@@ -0,0 +1,240 @@
+package com.example.library.admission;
+
+import com.example.library.model.Book;
+import com.example.library.model.User;
+import com.example.library.service.Library;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Admission-control front end for the circulation operations of a {@link Library}.
+ * <p>
+ * Member requests must come from a registered user, obtain a token from their own bucket (sized by
+ * user type) and from the global bucket, and then a slot in a bounded queue; otherwise they are
+ * rejected immediately with an {@link AdmissionRejectedException} rather than piling up. A request
+ * is charged only if it gets both tokens, so one member retrying cannot drain the global bucket and
+ * a global rejection does not use up the member's own quota. Per-user
+ * buckets that have refilled completely are dropped once the map grows, since a new bucket would
+ * behave the same. Admitted requests are executed one at a
+ * time by a single worker thread, which also makes concurrent callers safe because {@link Library}
+ * itself is not thread-safe. Staff operations bypass the token buckets, may use reserved queue slots
+ * and are always taken from the queue before member requests.
+ */
+public class AdmissionController implements AutoCloseable {
+    private static final int MIN_BUCKET_SWEEP_SIZE = 1024;
+
+    private enum Priority {
+        STAFF,
+        MEMBER
+    }
+
+    private final Library library;
+    private final AdmissionConfig config;
+    private final AdmissionMetrics metrics = new AdmissionMetrics();
+    private final TokenBucket globalBucket;
+    private final Map<Integer, TokenBucket> userBuckets = new ConcurrentHashMap<>();
+    private final PriorityBlockingQueue<Task<?>> queue = new PriorityBlockingQueue<>();
+    private final AtomicLong submissionOrder = new AtomicLong();
+    private int bucketSweepSize = MIN_BUCKET_SWEEP_SIZE;
+    private final Thread worker;
+    private volatile boolean shutDown;
+
+    public AdmissionController(Library library, AdmissionConfig config) {
+        this.library = library;
+        this.config = config;
+        this.globalBucket = new TokenBucket(config.getGlobalLimit());
+        this.worker = new Thread(this::processQueue, "library-admission-worker");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    public boolean borrowBookByIsbn(int userId, String isbn) {
+        return submitForMember(userId, lib -> lib.borrowBookByIsbn(userId, isbn));
+    }
+
+    public boolean returnBookById(int userId, int bookId) {
+        return submitForMember(userId, lib -> lib.returnBookById(userId, bookId));
+    }
+
+    public List<Book> searchBooks(int userId, String query) {
+        return submitForMember(userId, lib -> lib.searchBooks(query));
+    }
+
+    /**
+     * Runs a staff operation ahead of queued member requests and without rate limiting.
+     */
+    public <T> T executeAsStaff(Function<Library, T> operation) {
+        return submit(Priority.STAFF, operation);
+    }
+
+    public AdmissionMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Stops the worker. Requests still waiting in the queue are rejected.
+     */
+    @Override
+    public void close() {
+        shutDown = true;
+        worker.interrupt();
+        Task<?> task;
+        while ((task = queue.poll()) != null) {
+            metrics.queuedGauge().decrementAndGet();
+            metrics.recordRejected(AdmissionRejectedException.Reason.SHUT_DOWN);
+            task.future.completeExceptionally(new AdmissionRejectedException(AdmissionRejectedException.Reason.SHUT_DOWN,
+                    "Admission controller is shut down"));
+        }
+    }
+
+    private <T> T submitForMember(int userId, Function<Library, T> operation) {
+        TokenBucket userBucket = userBucket(userId);
+        if (userBucket == null) {
+            throw reject(AdmissionRejectedException.Reason.UNKNOWN_USER, "User not found: " + userId);
+        }
+        if (!userBucket.tryAcquire()) {
+            throw reject(AdmissionRejectedException.Reason.USER_RATE_LIMIT, "Too many requests for user " + userId);
+        }
+        if (!globalBucket.tryAcquire()) {
+            userBucket.release();
+            throw reject(AdmissionRejectedException.Reason.GLOBAL_RATE_LIMIT, "Library is busy, please retry shortly");
+        }
+        return submit(Priority.MEMBER, operation);
+    }
+
+    private <T> T submit(Priority priority, Function<Library, T> operation) {
+        if (shutDown) {
+            throw reject(AdmissionRejectedException.Reason.SHUT_DOWN, "Admission controller is shut down");
+        }
+        int limit = config.getQueueCapacity() + (priority == Priority.STAFF ? config.getStaffReserve() : 0);
+        AtomicInteger queued = metrics.queuedGauge();
+        int current;
+        do {
+            current = queued.get();
+            if (current >= limit) {
+                throw reject(AdmissionRejectedException.Reason.QUEUE_FULL, "Request queue is full");
+            }
+        } while (!queued.compareAndSet(current, current + 1));
+        metrics.recordAdmitted();
+
+        Task<T> task = new Task<>(priority, submissionOrder.getAndIncrement(), operation);
+        queue.add(task);
+        if (shutDown && queue.remove(task)) {
+            queued.decrementAndGet();
+            throw reject(AdmissionRejectedException.Reason.SHUT_DOWN, "Admission controller is shut down");
+        }
+        try {
+            return task.future.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the library", ex);
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    private void processQueue() {
+        while (!shutDown) {
+            Task<?> task;
+            try {
+                task = queue.take();
+            } catch (InterruptedException ex) {
+                return;
+            }
+            Runnable completion = task.run(library);
+            metrics.queuedGauge().decrementAndGet();
+            metrics.recordCompleted();
+            completion.run();
+        }
+    }
+
+    /**
+     * Returns the bucket for a registered user, creating it on first use, or {@code null} if no such user exists.
+     */
+    private TokenBucket userBucket(int userId) {
+        TokenBucket bucket = userBuckets.get(userId);
+        if (bucket != null) {
+            return bucket;
+        }
+        String userType;
+        synchronized (library) {
+            userType = library.findUser(userId).map(User::getType).orElse(null);
+        }
+        if (userType == null) {
+            return null;
+        }
+        TokenBucket created = new TokenBucket(config.getUserLimit(userType));
+        TokenBucket existing = userBuckets.putIfAbsent(userId, created);
+        if (existing != null) {
+            return existing;
+        }
+        sweepIdleBuckets();
+        return created;
+    }
+
+    /**
+     * Drops buckets that have refilled completely once the map has doubled since the last sweep,
+     * so it only holds recently active users.
+     */
+    private synchronized void sweepIdleBuckets() {
+        if (userBuckets.size() < bucketSweepSize) {
+            return;
+        }
+        userBuckets.values().removeIf(TokenBucket::isFull);
+        bucketSweepSize = Math.max(MIN_BUCKET_SWEEP_SIZE, userBuckets.size() * 2);
+    }
+
+    private AdmissionRejectedException reject(AdmissionRejectedException.Reason reason, String message) {
+        metrics.recordRejected(reason);
+        return new AdmissionRejectedException(reason, message);
+    }
+
+    private static final class Task<T> implements Comparable<Task<?>> {
+        private final Priority priority;
+        private final long order;
+        private final Function<Library, T> operation;
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+
+        private Task(Priority priority, long order, Function<Library, T> operation) {
+            this.priority = priority;
+            this.order = order;
+            this.operation = operation;
+        }
+
+        /**
+         * Executes the operation and returns the action that hands its outcome to the waiting caller.
+         */
+        private Runnable run(Library library) {
+            try {
+                T result;
+                synchronized (library) {
+                    result = operation.apply(library);
+                }
+                return () -> future.complete(result);
+            } catch (RuntimeException | Error ex) {
+                return () -> future.completeExceptionally(ex);
+            }
+        }
+
+        @Override
+        public int compareTo(Task<?> other) {
+            int byPriority = priority.compareTo(other.priority);
+            return byPriority != 0 ? byPriority : Long.compare(order, other.order);
+        }
+    }
+}
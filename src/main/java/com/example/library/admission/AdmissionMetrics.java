@@ -0,0 +1,71 @@
+package com.example.library.admission;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters maintained by the {@link AdmissionController}.
+ */
+public class AdmissionMetrics {
+    private final AtomicInteger queued = new AtomicInteger();
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final Map<AdmissionRejectedException.Reason, LongAdder> rejected = new EnumMap<>(AdmissionRejectedException.Reason.class);
+
+    AdmissionMetrics() {
+        for (AdmissionRejectedException.Reason reason : AdmissionRejectedException.Reason.values()) {
+            rejected.put(reason, new LongAdder());
+        }
+    }
+
+    AtomicInteger queuedGauge() {
+        return queued;
+    }
+
+    void recordAdmitted() {
+        admitted.increment();
+    }
+
+    void recordCompleted() {
+        completed.increment();
+    }
+
+    void recordRejected(AdmissionRejectedException.Reason reason) {
+        rejected.get(reason).increment();
+    }
+
+    /**
+     * Returns the number of admitted requests currently waiting for or running on the worker.
+     */
+    public int getQueued() {
+        return queued.get();
+    }
+
+    public long getAdmitted() {
+        return admitted.sum();
+    }
+
+    public long getCompleted() {
+        return completed.sum();
+    }
+
+    public long getRejected() {
+        return rejected.values().stream().mapToLong(LongAdder::sum).sum();
+    }
+
+    public long getRejected(AdmissionRejectedException.Reason reason) {
+        return rejected.get(reason).sum();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("queued=%d admitted=%d completed=%d rejected=%d (global=%d, user=%d, unknown=%d, queue=%d)",
+                getQueued(), getAdmitted(), getCompleted(), getRejected(),
+                getRejected(AdmissionRejectedException.Reason.GLOBAL_RATE_LIMIT),
+                getRejected(AdmissionRejectedException.Reason.USER_RATE_LIMIT),
+                getRejected(AdmissionRejectedException.Reason.UNKNOWN_USER),
+                getRejected(AdmissionRejectedException.Reason.QUEUE_FULL));
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.library.admission;
+
+/**
+ * Thrown when the admission controller sheds a request instead of running it.
+ */
+public class AdmissionRejectedException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public enum Reason {
+        GLOBAL_RATE_LIMIT,
+        USER_RATE_LIMIT,
+        UNKNOWN_USER,
+        QUEUE_FULL,
+        SHUT_DOWN
+    }
+
+    private final Reason reason;
+
+    public AdmissionRejectedException(Reason reason, String message) {
+        super(message);
+        this.reason = reason;
+    }
+
+    public Reason getReason() {
+        return reason;
+    }
+}
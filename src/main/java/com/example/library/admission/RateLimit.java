@@ -0,0 +1,33 @@
+package com.example.library.admission;
+
+/**
+ * Sustained request rate and burst size for a token bucket.
+ */
+public class RateLimit {
+    private final double permitsPerSecond;
+    private final int burst;
+
+    public RateLimit(double permitsPerSecond, int burst) {
+        if (permitsPerSecond <= 0) {
+            throw new IllegalArgumentException("Rate must be positive");
+        }
+        if (burst <= 0) {
+            throw new IllegalArgumentException("Burst must be positive");
+        }
+        this.permitsPerSecond = permitsPerSecond;
+        this.burst = burst;
+    }
+
+    public double getPermitsPerSecond() {
+        return permitsPerSecond;
+    }
+
+    public int getBurst() {
+        return burst;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%.1f/s (burst %d)", permitsPerSecond, burst);
+    }
+}
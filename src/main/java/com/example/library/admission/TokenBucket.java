@@ -0,0 +1,48 @@
+package com.example.library.admission;
+
+/**
+ * Token bucket that refills continuously at a fixed rate up to its burst capacity.
+ */
+public class TokenBucket {
+    private final double capacity;
+    private final double tokensPerNano;
+    private double tokens;
+    private long lastRefill;
+
+    public TokenBucket(RateLimit limit) {
+        this.capacity = limit.getBurst();
+        this.tokensPerNano = limit.getPermitsPerSecond() / 1_000_000_000.0;
+        this.tokens = capacity;
+        this.lastRefill = System.nanoTime();
+    }
+
+    public synchronized boolean tryAcquire() {
+        refill();
+        if (tokens < 1) {
+            return false;
+        }
+        tokens -= 1;
+        return true;
+    }
+
+    /**
+     * Returns a token taken by {@link #tryAcquire()} whose request was rejected elsewhere.
+     */
+    public synchronized void release() {
+        tokens = Math.min(capacity, tokens + 1);
+    }
+
+    /**
+     * Returns whether the bucket has refilled to capacity, i.e. behaves exactly like a new one.
+     */
+    public synchronized boolean isFull() {
+        refill();
+        return tokens >= capacity;
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + (now - lastRefill) * tokensPerNano);
+        lastRefill = now;
+    }
+}
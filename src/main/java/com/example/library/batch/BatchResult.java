@@ -0,0 +1,53 @@
+package com.example.library.batch;
+
+/**
+ * Totals reported at the end of a batch run.
+ */
+public class BatchResult {
+    private final int commands;
+    private final int succeeded;
+    private final int failed;
+    private final int checkpoints;
+    private final int failedCheckpoints;
+    private final long elapsedNanos;
+
+    public BatchResult(int commands, int succeeded, int failed, int checkpoints, int failedCheckpoints, long elapsedNanos) {
+        this.commands = commands;
+        this.succeeded = succeeded;
+        this.failed = failed;
+        this.checkpoints = checkpoints;
+        this.failedCheckpoints = failedCheckpoints;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public int getCommands() {
+        return commands;
+    }
+
+    public int getSucceeded() {
+        return succeeded;
+    }
+
+    public int getFailed() {
+        return failed;
+    }
+
+    public int getCheckpoints() {
+        return checkpoints;
+    }
+
+    public int getFailedCheckpoints() {
+        return failedCheckpoints;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        double seconds = elapsedNanos / 1e9;
+        return String.format("commands=%d ok=%d failed=%d checkpoints=%d failed-checkpoints=%d elapsed=%.3fs rate=%.0f/s",
+                commands, succeeded, failed, checkpoints, failedCheckpoints, seconds, seconds == 0 ? 0 : commands / seconds);
+    }
+}
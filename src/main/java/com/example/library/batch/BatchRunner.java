@@ -0,0 +1,214 @@
+package com.example.library.batch;
+
+import com.example.library.model.Book;
+import com.example.library.model.User;
+import com.example.library.persistence.LibraryStorage;
+import com.example.library.service.Library;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Runs library commands from a text stream without the interactive menu.
+ * <p>
+ * Each non-blank line that does not start with {@code #} is one command; arguments are separated by
+ * whitespace and may be double-quoted:
+ * <pre>
+ * borrow &lt;userId&gt; &lt;isbn&gt;
+ * return &lt;userId&gt; &lt;isbn&gt;
+ * add-book "&lt;title&gt;" "&lt;author&gt;" &lt;isbn&gt; &lt;copies&gt; ["&lt;description&gt;"]
+ * remove-book &lt;bookId&gt;
+ * add-student "&lt;name&gt;" &lt;email&gt;
+ * add-professor "&lt;name&gt;" &lt;email&gt;
+ * save
+ * </pre>
+ * For every command one tab-separated result line is written: the input line number, {@code OK} or
+ * {@code ERR}, and a detail such as the new ID or the error message. The library is saved every
+ * {@code checkpointInterval} changes and once more at the end. A checkpoint that fails does not undo the
+ * command that triggered it, so that command is still reported {@code OK} and the failure gets its own
+ * {@code SAVE_FAILED} line; the pending changes are kept and the next command tries the save again. A
+ * failed final save fails the whole run with an {@link IOException}.
+ */
+public class BatchRunner {
+    private final Library library;
+    private final LibraryStorage storage;
+    private final int checkpointInterval;
+    private int changesSinceCheckpoint;
+    private int checkpoints;
+    private int failedCheckpoints;
+
+    /**
+     * @param checkpointInterval number of successful changes between saves; 0 saves only at the end
+     */
+    public BatchRunner(Library library, LibraryStorage storage, int checkpointInterval) {
+        if (checkpointInterval < 0) {
+            throw new IllegalArgumentException("Checkpoint interval cannot be negative");
+        }
+        this.library = library;
+        this.storage = storage;
+        this.checkpointInterval = checkpointInterval;
+    }
+
+    /**
+     * Executes every command in {@code input}. Result lines are flushed before the final save, so they are
+     * complete even when that save fails.
+     *
+     * @throws IOException if reading or writing fails, or the library cannot be saved at the end
+     */
+    public BatchResult run(BufferedReader input, Writer output) throws IOException {
+        long start = System.nanoTime();
+        int lineNumber = 0;
+        int commands = 0;
+        int succeeded = 0;
+        String line;
+        while ((line = input.readLine()) != null) {
+            lineNumber++;
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+                continue;
+            }
+            commands++;
+            String detail;
+            boolean ok;
+            try {
+                detail = execute(tokenize(trimmed));
+                ok = true;
+            } catch (RuntimeException ex) {
+                detail = ex.getMessage() == null ? ex.getClass().getSimpleName() : ex.getMessage();
+                ok = false;
+            }
+            if (ok) {
+                succeeded++;
+            }
+            output.write(lineNumber + "\t" + (ok ? "OK" : "ERR") + "\t" + detail.replace('\t', ' ') + "\n");
+            if (ok && checkpointInterval > 0 && changesSinceCheckpoint >= checkpointInterval) {
+                try {
+                    checkpoint();
+                } catch (IllegalStateException ex) {
+                    failedCheckpoints++;
+                    output.write(lineNumber + "\tSAVE_FAILED\t" + describeSaveFailure(ex).replace('\t', ' ') + "\n");
+                }
+            }
+        }
+        output.flush();
+        if (changesSinceCheckpoint > 0) {
+            try {
+                checkpoint();
+            } catch (IllegalStateException ex) {
+                throw new IOException(describeSaveFailure(ex), ex);
+            }
+        }
+        return new BatchResult(commands, succeeded, commands - succeeded, checkpoints, failedCheckpoints,
+                System.nanoTime() - start);
+    }
+
+    private String execute(List<String> args) {
+        String command = args.get(0).toLowerCase(Locale.ROOT);
+        switch (command) {
+            case "borrow":
+                requireArgs(args, 3, "borrow <userId> <isbn>");
+                if (!library.borrowBookByIsbn(parseId(args.get(1)), args.get(2))) {
+                    throw new IllegalArgumentException("Unknown user or ISBN");
+                }
+                changed();
+                return "borrowed";
+            case "return":
+                requireArgs(args, 3, "return <userId> <isbn>");
+                if (!library.returnBookByIsbn(parseId(args.get(1)), args.get(2))) {
+                    throw new IllegalArgumentException("Unknown user or ISBN");
+                }
+                changed();
+                return "returned";
+            case "add-book": {
+                requireArgs(args, 5, "add-book <title> <author> <isbn> <copies> [description]");
+                Book book = library.addBook(args.get(1), args.get(2), args.get(3), parseId(args.get(4)),
+                        args.size() > 5 ? args.get(5) : "");
+                changed();
+                return String.valueOf(book.getId());
+            }
+            case "remove-book":
+                requireArgs(args, 2, "remove-book <bookId>");
+                if (!library.removeBook(parseId(args.get(1)))) {
+                    throw new IllegalArgumentException("Book not found");
+                }
+                changed();
+                return "removed";
+            case "add-student":
+            case "add-professor": {
+                requireArgs(args, 3, command + " <name> <email>");
+                User user = command.equals("add-student")
+                        ? library.addStudent(args.get(1), args.get(2))
+                        : library.addProfessor(args.get(1), args.get(2));
+                changed();
+                return String.valueOf(user.getId());
+            }
+            case "save":
+                checkpoint();
+                return "saved";
+            default:
+                throw new IllegalArgumentException("Unknown command: " + args.get(0));
+        }
+    }
+
+    private void changed() {
+        changesSinceCheckpoint++;
+    }
+
+    private void checkpoint() {
+        storage.save(library);
+        changesSinceCheckpoint = 0;
+        checkpoints++;
+    }
+
+    private String describeSaveFailure(IllegalStateException ex) {
+        return ex.getCause() == null ? ex.getMessage() : ex.getMessage() + ": " + ex.getCause().getMessage();
+    }
+
+    private void requireArgs(List<String> args, int minimum, String usage) {
+        if (args.size() < minimum) {
+            throw new IllegalArgumentException("Usage: " + usage);
+        }
+    }
+
+    private int parseId(String value) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Not a number: " + value);
+        }
+    }
+
+    static List<String> tokenize(String line) {
+        List<String> tokens = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        boolean inToken = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '"') {
+                quoted = !quoted;
+                inToken = true;
+            } else if (Character.isWhitespace(c) && !quoted) {
+                if (inToken) {
+                    tokens.add(current.toString());
+                    current.setLength(0);
+                    inToken = false;
+                }
+            } else {
+                current.append(c);
+                inToken = true;
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quote");
+        }
+        if (inToken) {
+            tokens.add(current.toString());
+        }
+        return tokens;
+    }
+}
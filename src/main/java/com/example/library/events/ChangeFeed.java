@@ -0,0 +1,248 @@
+package com.example.library.events;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Ordered, bounded feed of {@link LibraryEvent}s.
+ * <p>
+ * Published events go into a fixed-size ring buffer; publishing never blocks on subscribers and never
+ * runs subscriber code. Each subscription keeps its own cursor and is drained asynchronously on the
+ * executor, only as far as the subscriber has requested. A subscriber that falls more than the buffer
+ * capacity behind receives {@code onError} and can resubscribe from {@link #getOldestSequence()} or
+ * reload state. Subscribers can also resume from a known sequence with {@link #subscribe(Flow.Subscriber, long)}.
+ * <p>
+ * The owner hands consumers {@link #view()}, which has no {@link #publish} or {@link #close()}, so no
+ * consumer can end the feed for the others.
+ */
+public class ChangeFeed implements ChangeFeedView {
+    public static final int DEFAULT_CAPACITY = 8192;
+
+    private final AtomicReferenceArray<LibraryEvent> buffer;
+    private final Executor executor;
+    private final List<FeedSubscription> subscriptions = new CopyOnWriteArrayList<>();
+    private final long firstSequence;
+    private final ChangeFeedView view = new View();
+    private volatile long latestSequence;
+    private volatile boolean closed;
+
+    /**
+     * Creates a feed whose next event will have sequence {@code lastSequence + 1}.
+     */
+    public ChangeFeed(long lastSequence) {
+        this(lastSequence, DEFAULT_CAPACITY, ForkJoinPool.commonPool());
+    }
+
+    public ChangeFeed(long lastSequence, int capacity, Executor executor) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.buffer = new AtomicReferenceArray<>(capacity);
+        this.executor = Objects.requireNonNull(executor, "executor");
+        this.latestSequence = lastSequence;
+        this.firstSequence = lastSequence + 1;
+    }
+
+    /**
+     * Appends an event. Its sequence must be exactly one more than the previous event's. Events published
+     * after {@link #close()} are discarded; the owner closes the feed only when it stops publishing for good.
+     */
+    public synchronized void publish(LibraryEvent event) {
+        if (closed) {
+            return;
+        }
+        if (event.getSequence() != latestSequence + 1) {
+            throw new IllegalArgumentException("Expected sequence " + (latestSequence + 1) + " but got " + event.getSequence());
+        }
+        buffer.set(slot(event.getSequence()), event);
+        latestSequence = event.getSequence();
+        for (FeedSubscription subscription : subscriptions) {
+            subscription.signal();
+        }
+    }
+
+    /**
+     * Subscribes to events published after this call.
+     */
+    @Override
+    public void subscribe(Flow.Subscriber<? super LibraryEvent> subscriber) {
+        subscribe(subscriber, latestSequence + 1);
+    }
+
+    /**
+     * Subscribes starting at {@code fromSequence}, replaying retained events first. If that sequence is
+     * no longer retained the subscriber receives {@code onError} once it requests events.
+     */
+    @Override
+    public void subscribe(Flow.Subscriber<? super LibraryEvent> subscriber, long fromSequence) {
+        Objects.requireNonNull(subscriber, "subscriber");
+        FeedSubscription subscription = new FeedSubscription(subscriber, fromSequence);
+        subscriptions.add(subscription);
+        subscriber.onSubscribe(subscription);
+        if (closed) {
+            subscription.signal();
+        }
+    }
+
+    /**
+     * Completes every subscription once it has consumed the events already published.
+     */
+    public void close() {
+        closed = true;
+        for (FeedSubscription subscription : subscriptions) {
+            subscription.signal();
+        }
+    }
+
+    /**
+     * Returns the subscriber-side view of this feed, safe to hand to consumers.
+     */
+    public ChangeFeedView view() {
+        return view;
+    }
+
+    @Override
+    public long getLatestSequence() {
+        return latestSequence;
+    }
+
+    /**
+     * Returns the oldest sequence that can still be delivered. When nothing has been published since the
+     * feed was created this is the sequence of the next event.
+     */
+    @Override
+    public long getOldestSequence() {
+        return Math.max(firstSequence, latestSequence - buffer.length() + 1);
+    }
+
+    @Override
+    public int getSubscriberCount() {
+        return subscriptions.size();
+    }
+
+    private int slot(long sequence) {
+        return (int) Math.floorMod(sequence, (long) buffer.length());
+    }
+
+    private final class View implements ChangeFeedView {
+        @Override
+        public void subscribe(Flow.Subscriber<? super LibraryEvent> subscriber) {
+            ChangeFeed.this.subscribe(subscriber);
+        }
+
+        @Override
+        public void subscribe(Flow.Subscriber<? super LibraryEvent> subscriber, long fromSequence) {
+            ChangeFeed.this.subscribe(subscriber, fromSequence);
+        }
+
+        @Override
+        public long getLatestSequence() {
+            return latestSequence;
+        }
+
+        @Override
+        public long getOldestSequence() {
+            return ChangeFeed.this.getOldestSequence();
+        }
+
+        @Override
+        public int getSubscriberCount() {
+            return subscriptions.size();
+        }
+    }
+
+    private final class FeedSubscription implements Flow.Subscription {
+        private final Flow.Subscriber<? super LibraryEvent> subscriber;
+        private final AtomicLong requested = new AtomicLong();
+        private final AtomicInteger pendingSignals = new AtomicInteger();
+        private long cursor;
+        private volatile boolean cancelled;
+        private volatile Throwable invalidRequest;
+
+        private FeedSubscription(Flow.Subscriber<? super LibraryEvent> subscriber, long fromSequence) {
+            this.subscriber = subscriber;
+            this.cursor = fromSequence;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                invalidRequest = new IllegalArgumentException("Requested event count must be positive");
+            } else {
+                requested.accumulateAndGet(n, (current, add) -> current + add < 0 ? Long.MAX_VALUE : current + add);
+            }
+            signal();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            subscriptions.remove(this);
+        }
+
+        private void signal() {
+            if (pendingSignals.getAndIncrement() == 0) {
+                executor.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            int missed = 1;
+            while (true) {
+                deliver();
+                missed = pendingSignals.addAndGet(-missed);
+                if (missed == 0) {
+                    return;
+                }
+            }
+        }
+
+        private void deliver() {
+            while (!cancelled) {
+                if (invalidRequest != null) {
+                    fail(invalidRequest);
+                    return;
+                }
+                long latest = latestSequence;
+                if (cursor > latest) {
+                    if (closed) {
+                        cancel();
+                        subscriber.onComplete();
+                    }
+                    return;
+                }
+                if (requested.get() == 0) {
+                    return;
+                }
+                LibraryEvent event = buffer.get(slot(cursor));
+                if (cursor < getOldestSequence() || event == null || event.getSequence() != cursor) {
+                    fail(new IllegalStateException("Subscriber fell behind: event " + cursor
+                            + " is no longer retained, oldest available is " + getOldestSequence()));
+                    return;
+                }
+                cursor++;
+                if (requested.get() != Long.MAX_VALUE) {
+                    requested.decrementAndGet();
+                }
+                try {
+                    subscriber.onNext(event);
+                } catch (RuntimeException ex) {
+                    fail(ex);
+                    return;
+                }
+            }
+        }
+
+        private void fail(Throwable error) {
+            cancel();
+            subscriber.onError(error);
+        }
+    }
+}
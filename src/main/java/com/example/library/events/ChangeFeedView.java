@@ -0,0 +1,20 @@
+package com.example.library.events;
+
+import java.util.concurrent.Flow;
+
+/**
+ * Subscriber side of a {@link ChangeFeed}. Consumers can subscribe, resume and inspect sequences, but
+ * only the feed's owner can publish to it or close it; a consumer that is done cancels its own subscription.
+ */
+public interface ChangeFeedView extends Flow.Publisher<LibraryEvent> {
+    /**
+     * Subscribes starting at {@code fromSequence}, replaying retained events first.
+     */
+    void subscribe(Flow.Subscriber<? super LibraryEvent> subscriber, long fromSequence);
+
+    long getLatestSequence();
+
+    long getOldestSequence();
+
+    int getSubscriberCount();
+}
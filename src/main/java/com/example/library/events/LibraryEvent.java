@@ -0,0 +1,61 @@
+package com.example.library.events;
+
+import java.time.Instant;
+
+/**
+ * A change to the library, as published on the {@link ChangeFeed}.
+ * <p>
+ * Events carry identifiers only; subscribers that need the current state look it up in the library.
+ * Fields that do not apply to an event type (for example the user of a {@code BOOK_ADDED}) are {@code -1}.
+ */
+public class LibraryEvent {
+    public enum Type {
+        BOOK_ADDED,
+        BOOK_UPDATED,
+        BOOK_REMOVED,
+        USER_ADDED,
+        USER_UPDATED,
+        USER_REMOVED,
+        LOAN_OPENED,
+        LOAN_CLOSED
+    }
+
+    private final long sequence;
+    private final Type type;
+    private final int bookId;
+    private final int userId;
+    private final Instant timestamp;
+
+    public LibraryEvent(long sequence, Type type, int bookId, int userId, Instant timestamp) {
+        this.sequence = sequence;
+        this.type = type;
+        this.bookId = bookId;
+        this.userId = userId;
+        this.timestamp = timestamp;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public int getBookId() {
+        return bookId;
+    }
+
+    public int getUserId() {
+        return userId;
+    }
+
+    public Instant getTimestamp() {
+        return timestamp;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Event[#%d %s, book=%d, user=%d, at=%s]", sequence, type, bookId, userId, timestamp);
+    }
+}
@@ -0,0 +1,233 @@
+package com.example.library.persistence;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.zip.CRC32C;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Container format that splits a byte payload into independently Deflate-compressed blocks.
+ * <p>
+ * Layout: magic {@code "LIBZ"}, format version, block size, block count, then a table with each block's
+ * raw length, compressed length and CRC32C of the raw bytes, then a CRC32C of everything so far, then
+ * the compressed blocks. The header is verified and every length is bounds-checked before anything is
+ * allocated, so a damaged header is reported as an {@link IOException} like any other corruption.
+ * Because blocks are independent they are compressed and decompressed in parallel, and a damaged block
+ * is reported precisely instead of yielding a half-read object stream. Version 1 files, which kept each
+ * block's lengths next to its data and had no header checksum, are still read.
+ */
+public class BlockCompressedFormat {
+    public static final int DEFAULT_BLOCK_SIZE = 1 << 20;
+
+    private static final byte[] MAGIC = {'L', 'I', 'B', 'Z'};
+    private static final int VERSION = 2;
+    private static final int INTERLEAVED_VERSION = 1;
+    private static final int MAX_RAW_SIZE = Integer.MAX_VALUE - 8;
+    private static final int HEADER_SIZE = MAGIC.length + 3 * Integer.BYTES;
+    private static final int BLOCK_HEADER_SIZE = 3 * Integer.BYTES;
+
+    private final int blockSize;
+    private final int compressionLevel;
+
+    public BlockCompressedFormat() {
+        this(DEFAULT_BLOCK_SIZE, Deflater.BEST_SPEED);
+    }
+
+    public BlockCompressedFormat(int blockSize, int compressionLevel) {
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("Block size must be positive");
+        }
+        this.blockSize = blockSize;
+        this.compressionLevel = compressionLevel;
+    }
+
+    public static boolean isBlockCompressed(byte[] data) {
+        return data.length >= MAGIC.length && Arrays.equals(data, 0, MAGIC.length, MAGIC, 0, MAGIC.length);
+    }
+
+    /**
+     * Returns the number of blocks recorded in a container header, or 1 for data that is not block compressed.
+     */
+    public static int blockCount(byte[] data) {
+        if (!isBlockCompressed(data) || data.length < HEADER_SIZE) {
+            return 1;
+        }
+        return ByteBuffer.wrap(data).getInt(HEADER_SIZE - Integer.BYTES);
+    }
+
+    public byte[] encode(byte[] raw) {
+        int blockCount = (raw.length + blockSize - 1) / blockSize;
+        List<Block> blocks = IntStream.range(0, blockCount).parallel()
+                .mapToObj(index -> compress(raw, index * blockSize, Math.min(blockSize, raw.length - index * blockSize)))
+                .collect(Collectors.toList());
+        int total = HEADER_SIZE + Integer.BYTES
+                + blocks.stream().mapToInt(block -> BLOCK_HEADER_SIZE + block.data.length).sum();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(total);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.write(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(blockSize);
+            out.writeInt(blockCount);
+            for (Block block : blocks) {
+                out.writeInt(block.rawLength);
+                out.writeInt(block.data.length);
+                out.writeInt(block.crc);
+            }
+            out.flush();
+            CRC32C headerCrc = new CRC32C();
+            headerCrc.update(bytes.toByteArray());
+            out.writeInt((int) headerCrc.getValue());
+            for (Block block : blocks) {
+                out.write(block.data);
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return bytes.toByteArray();
+    }
+
+    public byte[] decode(byte[] encoded) throws IOException {
+        if (!isBlockCompressed(encoded)) {
+            throw new IOException("Missing block container header");
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(encoded);
+        buffer.position(MAGIC.length);
+        int version = readInt(buffer, "version");
+        if (version != VERSION && version != INTERLEAVED_VERSION) {
+            throw new IOException("Unsupported block container version " + version);
+        }
+        int storedBlockSize = readInt(buffer, "block size");
+        if (storedBlockSize <= 0) {
+            throw new IOException("Corrupt block size " + storedBlockSize);
+        }
+        int blockCount = readInt(buffer, "block count");
+        if (blockCount < 0 || blockCount > buffer.remaining() / BLOCK_HEADER_SIZE) {
+            throw new IOException("Corrupt block count " + blockCount);
+        }
+        Block[] blocks = new Block[blockCount];
+        int[] offsets = new int[blockCount + 1];
+        if (version == VERSION) {
+            int[][] table = new int[blockCount][];
+            for (int i = 0; i < blockCount; i++) {
+                table[i] = new int[] {readInt(buffer, "block length"), readInt(buffer, "block length"),
+                        readInt(buffer, "block checksum")};
+            }
+            CRC32C headerCrc = new CRC32C();
+            headerCrc.update(encoded, 0, buffer.position());
+            if (readInt(buffer, "header checksum") != (int) headerCrc.getValue()) {
+                throw new IOException("Checksum mismatch in container header");
+            }
+            for (int i = 0; i < blockCount; i++) {
+                blocks[i] = readBlock(buffer, i, table[i][0], table[i][1], table[i][2], storedBlockSize);
+                offsets[i + 1] = nextOffset(offsets[i], blocks[i].rawLength);
+            }
+        } else {
+            for (int i = 0; i < blockCount; i++) {
+                int rawLength = readInt(buffer, "block length");
+                int compressedLength = readInt(buffer, "block length");
+                int crc = readInt(buffer, "block checksum");
+                blocks[i] = readBlock(buffer, i, rawLength, compressedLength, crc, storedBlockSize);
+                offsets[i + 1] = nextOffset(offsets[i], blocks[i].rawLength);
+            }
+        }
+        byte[] raw = new byte[offsets[blockCount]];
+        try {
+            IntStream.range(0, blockCount).parallel()
+                    .forEach(index -> decompress(blocks[index], index, raw, offsets[index]));
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+        return raw;
+    }
+
+    private Block readBlock(ByteBuffer buffer, int index, int rawLength, int compressedLength, int crc,
+                            int storedBlockSize) throws IOException {
+        if (rawLength < 0 || rawLength > storedBlockSize) {
+            throw new IOException("Block " + index + " has corrupt length " + rawLength);
+        }
+        if (compressedLength < 0 || compressedLength > buffer.remaining()) {
+            throw new IOException("Block " + index + " is truncated");
+        }
+        byte[] data = new byte[compressedLength];
+        buffer.get(data);
+        return new Block(rawLength, data, crc);
+    }
+
+    private int nextOffset(int offset, int rawLength) throws IOException {
+        if ((long) offset + rawLength > MAX_RAW_SIZE) {
+            throw new IOException("Decoded size exceeds " + MAX_RAW_SIZE + " bytes");
+        }
+        return offset + rawLength;
+    }
+
+    private Block compress(byte[] raw, int offset, int length) {
+        Deflater deflater = new Deflater(compressionLevel);
+        try {
+            deflater.setInput(raw, offset, length);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, length / 2));
+            byte[] chunk = new byte[64 * 1024];
+            while (!deflater.finished()) {
+                int written = deflater.deflate(chunk);
+                out.write(chunk, 0, written);
+            }
+            CRC32C crc = new CRC32C();
+            crc.update(raw, offset, length);
+            return new Block(length, out.toByteArray(), (int) crc.getValue());
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private void decompress(Block block, int index, byte[] target, int offset) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(block.data);
+            int read = 0;
+            while (read < block.rawLength && !inflater.finished()) {
+                int count = inflater.inflate(target, offset + read, block.rawLength - read);
+                if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                read += count;
+            }
+            CRC32C crc = new CRC32C();
+            crc.update(target, offset, read);
+            if (read != block.rawLength || (int) crc.getValue() != block.crc) {
+                throw new UncheckedIOException(new IOException("Checksum mismatch in block " + index));
+            }
+        } catch (DataFormatException ex) {
+            throw new UncheckedIOException(new IOException("Block " + index + " is corrupt", ex));
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private int readInt(ByteBuffer buffer, String field) throws IOException {
+        if (buffer.remaining() < Integer.BYTES) {
+            throw new IOException("Truncated file while reading " + field);
+        }
+        return buffer.getInt();
+    }
+
+    private static final class Block {
+        private final int rawLength;
+        private final byte[] data;
+        private final int crc;
+
+        private Block(int rawLength, byte[] data, int crc) {
+            this.rawLength = rawLength;
+            this.data = data;
+            this.crc = crc;
+        }
+    }
+}
@@ -2,21 +2,41 @@ package com.example.library.persistence;
 
 import com.example.library.service.Library;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
 
 /**
  * Handles saving and loading library data from disk.
+ * <p>
+ * Data is written in the {@link BlockCompressedFormat} container through a temporary file that is
+ * renamed over the previous one, so an interrupted save leaves the last good copy in place. Files
+ * written by older versions as plain serialized objects are still read.
  */
 public class LibraryStorage {
     private final Path storagePath;
+    private final BlockCompressedFormat format;
+    private volatile StorageStats lastSaveStats;
+    private volatile StorageStats lastLoadStats;
 
     public LibraryStorage(Path storagePath) {
+        this(storagePath, new BlockCompressedFormat());
+    }
+
+    public LibraryStorage(Path storagePath, BlockCompressedFormat format) {
         this.storagePath = storagePath;
+        this.format = format;
     }
 
     public static LibraryStorage defaultStorage() {
@@ -27,28 +47,86 @@ public class LibraryStorage {
         if (!Files.exists(storagePath)) {
             return newLibraryInstance();
         }
-        try (ObjectInputStream ois = new ObjectInputStream(Files.newInputStream(storagePath))) {
-            Object obj = ois.readObject();
-            if (obj instanceof Library) {
-                Library library = (Library) obj;
-                library.syncCounters();
-                return library;
+        try {
+            long start = System.nanoTime();
+            byte[] stored = Files.readAllBytes(storagePath);
+            byte[] raw = BlockCompressedFormat.isBlockCompressed(stored) ? format.decode(stored) : stored;
+            try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(raw))) {
+                Object obj = ois.readObject();
+                if (obj instanceof Library) {
+                    Library library = (Library) obj;
+                    library.syncCounters();
+                    lastLoadStats = new StorageStats(raw.length, stored.length, BlockCompressedFormat.blockCount(stored), System.nanoTime() - start);
+                    return library;
+                }
+                throw new IOException("Unexpected data format inside " + storagePath);
             }
-            throw new IOException("Unexpected data format inside " + storagePath);
         } catch (IOException | ClassNotFoundException ex) {
             System.err.println("Warning: failed to load existing library data: " + ex.getMessage());
+            preserveUnreadableFile();
             return newLibraryInstance();
         }
     }
 
     public void save(Library library) {
+        Path tempPath = null;
         try {
-            Files.createDirectories(storagePath.getParent());
-            try (ObjectOutputStream oos = new ObjectOutputStream(Files.newOutputStream(storagePath))) {
+            long start = System.nanoTime();
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (ObjectOutputStream oos = new ObjectOutputStream(bytes)) {
                 oos.writeObject(library);
             }
+            byte[] raw = bytes.toByteArray();
+            byte[] encoded = format.encode(raw);
+
+            Path directory = storagePath.toAbsolutePath().getParent();
+            Files.createDirectories(directory);
+            tempPath = Files.createTempFile(directory, storagePath.getFileName().toString(), ".tmp");
+            try (FileChannel channel = FileChannel.open(tempPath, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer buffer = ByteBuffer.wrap(encoded);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(true);
+            }
+            try {
+                Files.move(tempPath, storagePath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException ex) {
+                Files.move(tempPath, storagePath, StandardCopyOption.REPLACE_EXISTING);
+            }
+            tempPath = null;
+            lastSaveStats = new StorageStats(raw.length, encoded.length, BlockCompressedFormat.blockCount(encoded), System.nanoTime() - start);
         } catch (IOException ex) {
             throw new IllegalStateException("Failed to save library data", ex);
+        } finally {
+            if (tempPath != null) {
+                try {
+                    Files.deleteIfExists(tempPath);
+                } catch (IOException ignored) {
+                    // Best effort; a stray temp file does not affect the saved data.
+                }
+            }
+        }
+    }
+
+    public Optional<StorageStats> getLastSaveStats() {
+        return Optional.ofNullable(lastSaveStats);
+    }
+
+    public Optional<StorageStats> getLastLoadStats() {
+        return Optional.ofNullable(lastLoadStats);
+    }
+
+    /**
+     * Moves a file that could not be loaded out of the way so the next save does not overwrite it.
+     */
+    private void preserveUnreadableFile() {
+        Path backup = storagePath.resolveSibling(storagePath.getFileName() + ".unreadable-" + System.currentTimeMillis());
+        try {
+            Files.move(storagePath, backup);
+            System.err.println("The unreadable file was kept as " + backup);
+        } catch (IOException ex) {
+            System.err.println("Warning: could not preserve unreadable data file: " + ex.getMessage());
         }
     }
 
@@ -0,0 +1,47 @@
+package com.example.library.persistence;
+
+/**
+ * Size and timing figures for one save or load.
+ */
+public class StorageStats {
+    private final long rawBytes;
+    private final long storedBytes;
+    private final int blockCount;
+    private final long elapsedNanos;
+
+    public StorageStats(long rawBytes, long storedBytes, int blockCount, long elapsedNanos) {
+        this.rawBytes = rawBytes;
+        this.storedBytes = storedBytes;
+        this.blockCount = blockCount;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public long getRawBytes() {
+        return rawBytes;
+    }
+
+    public long getStoredBytes() {
+        return storedBytes;
+    }
+
+    public int getBlockCount() {
+        return blockCount;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * Returns raw size divided by stored size; 1.0 when nothing was stored.
+     */
+    public double getCompressionRatio() {
+        return storedBytes == 0 ? 1.0 : (double) rawBytes / storedBytes;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d bytes raw, %d bytes stored in %d block(s), ratio %.2fx, %.1f ms",
+                rawBytes, storedBytes, blockCount, getCompressionRatio(), elapsedNanos / 1e6);
+    }
+}
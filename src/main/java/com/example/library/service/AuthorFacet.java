@@ -0,0 +1,39 @@
+package com.example.library.service;
+
+/**
+ * Per-author summary used for browsing the catalogue by author.
+ */
+public class AuthorFacet {
+    private final String author;
+    private final int titleCount;
+    private final int totalCopies;
+    private final int availableCopies;
+
+    public AuthorFacet(String author, int titleCount, int totalCopies, int availableCopies) {
+        this.author = author;
+        this.titleCount = titleCount;
+        this.totalCopies = totalCopies;
+        this.availableCopies = availableCopies;
+    }
+
+    public String getAuthor() {
+        return author;
+    }
+
+    public int getTitleCount() {
+        return titleCount;
+    }
+
+    public int getTotalCopies() {
+        return totalCopies;
+    }
+
+    public int getAvailableCopies() {
+        return availableCopies;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s - Titles: %d, Available: %d/%d", author, titleCount, availableCopies, totalCopies);
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.library.service;
+
+import com.example.library.model.Book;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Dictionary of author names with a posting list of book IDs per author.
+ * <p>
+ * Every distinct author (compared case-insensitively, ignoring repeated whitespace) is assigned
+ * an int code, and copy counts are kept per code so author facets never need a catalogue scan.
+ * Books keep the spelling they were given, but share one {@link String} instance per exact
+ * spelling instead of holding their own copy. A facet is shown under the spelling of the most
+ * recently indexed book, so correcting an author's spelling also corrects the facet. Posting lists are plain {@code int[]} arrays, so indexing a book costs about
+ * four bytes rather than a set entry and a boxed ID.
+ */
+class AuthorIndex {
+    private static final int[] NO_BOOKS = new int[0];
+
+    private final Map<String, Integer> codesByKey = new HashMap<>();
+    private final Map<String, Integer> codesByName = new HashMap<>();
+    private final Map<String, String> spellings = new HashMap<>();
+    private final List<String> namesByCode = new ArrayList<>();
+    private int[][] bookIdsByCode = new int[16][];
+    private int[] bookCounts = new int[16];
+    private int[] totalCopiesByCode = new int[16];
+    private int[] availableCopiesByCode = new int[16];
+
+    /**
+     * Returns the shared instance of the given spelling (trimmed, as {@link Book} stores it), registering
+     * it if it is new. Blank names are returned unchanged so that {@link Book} can reject them.
+     */
+    String canonicalize(String author) {
+        if (author == null || author.isBlank()) {
+            return author;
+        }
+        String spelling = author.trim();
+        String shared = spellings.get(spelling);
+        if (shared != null) {
+            return shared;
+        }
+        codeFor(spelling);
+        spellings.put(spelling, spelling);
+        return spelling;
+    }
+
+    void add(Book book) {
+        int code = codeFor(book.getAuthor());
+        namesByCode.set(code, book.getAuthor());
+        int count = bookCounts[code];
+        if (count == bookIdsByCode[code].length) {
+            bookIdsByCode[code] = Arrays.copyOf(bookIdsByCode[code], Math.max(2, count * 2));
+        }
+        bookIdsByCode[code][count] = book.getId();
+        bookCounts[code] = count + 1;
+        totalCopiesByCode[code] += book.getTotalCopies();
+        availableCopiesByCode[code] += book.getAvailableCopies();
+    }
+
+    void remove(Book book) {
+        int code = existingCode(book.getAuthor());
+        if (code < 0) {
+            return;
+        }
+        int[] ids = bookIdsByCode[code];
+        int count = bookCounts[code];
+        for (int i = 0; i < count; i++) {
+            if (ids[i] == book.getId()) {
+                System.arraycopy(ids, i + 1, ids, i, count - i - 1);
+                bookCounts[code] = count - 1;
+                totalCopiesByCode[code] -= book.getTotalCopies();
+                availableCopiesByCode[code] -= book.getAvailableCopies();
+                return;
+            }
+        }
+    }
+
+    void availabilityChanged(Book book, int delta) {
+        int code = existingCode(book.getAuthor());
+        if (code >= 0) {
+            availableCopiesByCode[code] += delta;
+        }
+    }
+
+    List<Integer> bookIds(String author) {
+        int code = existingCode(author);
+        if (code < 0) {
+            return Collections.emptyList();
+        }
+        List<Integer> ids = new ArrayList<>(bookCounts[code]);
+        for (int i = 0; i < bookCounts[code]; i++) {
+            ids.add(bookIdsByCode[code][i]);
+        }
+        return ids;
+    }
+
+    List<AuthorFacet> facets() {
+        List<AuthorFacet> facets = new ArrayList<>();
+        for (int code = 0; code < namesByCode.size(); code++) {
+            int titles = bookCounts[code];
+            if (titles > 0) {
+                facets.add(new AuthorFacet(namesByCode.get(code), titles,
+                        totalCopiesByCode[code], availableCopiesByCode[code]));
+            }
+        }
+        return facets;
+    }
+
+    int size() {
+        return namesByCode.size();
+    }
+
+    /**
+     * Returns the code of a registered author, or -1. Spellings already seen, which is what books hold,
+     * are found with a single hash lookup; others are normalized first.
+     */
+    private int existingCode(String author) {
+        if (author == null) {
+            return -1;
+        }
+        Integer code = codesByName.get(author);
+        if (code == null) {
+            code = codesByKey.get(key(author));
+        }
+        return code == null ? -1 : code;
+    }
+
+    private int codeFor(String author) {
+        Integer known = codesByName.get(author);
+        if (known != null) {
+            return known;
+        }
+        String key = key(author);
+        Integer existing = codesByKey.get(key);
+        if (existing != null) {
+            codesByName.put(author, existing);
+            return existing;
+        }
+        int code = namesByCode.size();
+        codesByKey.put(key, code);
+        codesByName.put(author, code);
+        namesByCode.add(author.trim());
+        if (code == bookCounts.length) {
+            bookIdsByCode = Arrays.copyOf(bookIdsByCode, code * 2);
+            bookCounts = Arrays.copyOf(bookCounts, code * 2);
+            totalCopiesByCode = Arrays.copyOf(totalCopiesByCode, code * 2);
+            availableCopiesByCode = Arrays.copyOf(availableCopiesByCode, code * 2);
+        }
+        bookIdsByCode[code] = NO_BOOKS;
+        return code;
+    }
+
+    private String key(String author) {
+        return author.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+}
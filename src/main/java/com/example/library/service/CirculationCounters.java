@@ -0,0 +1,89 @@
+package com.example.library.service;
+
+import java.time.LocalDate;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Running circulation totals, updated in constant time by {@link Library} as books, users and loans change.
+ * <p>
+ * Counters are {@link LongAdder}s and loans are bucketed by due date in a concurrent map, so a dashboard
+ * thread can read a snapshot at any time without locking the library. Overdue loans are the sum of the
+ * buckets before today, which costs one step per distinct due date rather than per loan.
+ */
+class CirculationCounters {
+    private final LongAdder titles = new LongAdder();
+    private final LongAdder totalCopies = new LongAdder();
+    private final LongAdder copiesOnLoan = new LongAdder();
+    private final LongAdder members = new LongAdder();
+    private final LongAdder membersAtLimit = new LongAdder();
+    private final ConcurrentNavigableMap<LocalDate, LongAdder> loansByDueDate = new ConcurrentSkipListMap<>();
+
+    void bookAdded(int copies) {
+        titles.increment();
+        totalCopies.add(copies);
+    }
+
+    void bookRemoved(int copies) {
+        titles.decrement();
+        totalCopies.add(-copies);
+    }
+
+    void copiesChanged(int delta) {
+        totalCopies.add(delta);
+    }
+
+    void memberAdded() {
+        members.increment();
+    }
+
+    void memberRemoved() {
+        members.decrement();
+    }
+
+    void memberReachedLimit() {
+        membersAtLimit.increment();
+    }
+
+    void memberLeftLimit() {
+        membersAtLimit.decrement();
+    }
+
+    void loanOpened(LocalDate dueDate) {
+        copiesOnLoan.increment();
+        dueDateAdded(dueDate);
+    }
+
+    /**
+     * Counts copies already on loan when rebuilding; their due dates are added separately with
+     * {@link #dueDateAdded(LocalDate)}, since not every loaned copy may have a loan record.
+     */
+    void copiesOnLoanAdded(int copies) {
+        copiesOnLoan.add(copies);
+    }
+
+    void dueDateAdded(LocalDate dueDate) {
+        loansByDueDate.computeIfAbsent(dueDate, date -> new LongAdder()).increment();
+    }
+
+    void loanClosed(LocalDate dueDate) {
+        copiesOnLoan.decrement();
+        if (dueDate != null) {
+            LongAdder bucket = loansByDueDate.get(dueDate);
+            if (bucket != null) {
+                bucket.decrement();
+                if (bucket.sum() == 0) {
+                    loansByDueDate.remove(dueDate, bucket);
+                }
+            }
+        }
+    }
+
+    CirculationStats snapshot(LocalDate today) {
+        long overdue = loansByDueDate.headMap(today).values().stream().mapToLong(LongAdder::sum).sum();
+        long total = totalCopies.sum();
+        long onLoan = copiesOnLoan.sum();
+        return new CirculationStats(titles.sum(), total, onLoan, total - onLoan, overdue, members.sum(), membersAtLimit.sum());
+    }
+}
@@ -0,0 +1,325 @@
+package com.example.library.service;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.OptionalInt;
+
+/**
+ * Append-only record of book availability and loan open/close events, for answering "as of" questions.
+ * <p>
+ * Each event is one row across primitive arrays (time, kind, book, user, available copies afterwards),
+ * about 21 bytes per event. An in-memory checkpoint of the availability and holder state is taken every
+ * {@link #CHECKPOINT_INTERVAL} events, so a query reads one checkpoint and replays at most that many
+ * events. The state is kept in pages of 16 books; a checkpoint copies only the page tables and shares
+ * the pages themselves, which are copied on the next write, so each checkpoint costs a few bytes per
+ * 16 books plus the pages changed since the previous one. Checkpoints are not saved; they are rebuilt
+ * from the log when the library is loaded.
+ */
+public class CirculationHistory implements Serializable {
+    private static final long serialVersionUID = 1L;
+    private static final int CHECKPOINT_INTERVAL = 65536;
+    private static final int PAGE_SHIFT = 4;
+    private static final int PAGE_MASK = (1 << PAGE_SHIFT) - 1;
+
+    private static final byte COPIES_CHANGED = 0;
+    private static final byte LOAN_OPENED = 1;
+    private static final byte LOAN_CLOSED = 2;
+    private static final byte BOOK_REMOVED = 3;
+
+    private long[] times = new long[1024];
+    private byte[] kinds = new byte[1024];
+    private int[] bookIds = new int[1024];
+    private int[] userIds = new int[1024];
+    private int[] availableAfter = new int[1024];
+    private int size;
+
+    private transient State current = new State();
+    private transient List<Checkpoint> checkpoints = new ArrayList<>();
+    private transient int eventsSinceCheckpoint;
+
+    void copiesChanged(int bookId, int available) {
+        append(COPIES_CHANGED, bookId, -1, available);
+    }
+
+    void bookRemoved(int bookId) {
+        append(BOOK_REMOVED, bookId, -1, 0);
+    }
+
+    void loanOpened(int bookId, int userId, int available) {
+        append(LOAN_OPENED, bookId, userId, available);
+    }
+
+    void loanClosed(int bookId, int userId, int available) {
+        append(LOAN_CLOSED, bookId, userId, available);
+    }
+
+    /**
+     * Returns the available copies of a book at the given instant, or empty if the book was not in the
+     * catalogue then (or history had not started yet).
+     */
+    public OptionalInt availableCopiesAt(int bookId, Instant at) {
+        int end = eventsUpTo(at);
+        Checkpoint checkpoint = checkpointBefore(end);
+        int start = checkpoint == null ? 0 : checkpoint.eventIndex;
+        for (int i = end - 1; i >= start; i--) {
+            if (bookIds[i] == bookId) {
+                return kinds[i] == BOOK_REMOVED ? OptionalInt.empty() : OptionalInt.of(availableAfter[i]);
+            }
+        }
+        int available = checkpoint == null ? -1 : checkpoint.state.available(bookId);
+        return available < 0 ? OptionalInt.empty() : OptionalInt.of(available);
+    }
+
+    /**
+     * Returns the IDs of users holding a copy of the book at the given instant, one entry per copy.
+     */
+    public List<Integer> holdersAt(int bookId, Instant at) {
+        int end = eventsUpTo(at);
+        Checkpoint checkpoint = checkpointBefore(end);
+        List<Integer> holders = new ArrayList<>();
+        int start = 0;
+        if (checkpoint != null) {
+            for (int userId : checkpoint.state.holders(bookId)) {
+                holders.add(userId);
+            }
+            start = checkpoint.eventIndex;
+        }
+        for (int i = start; i < end; i++) {
+            if (bookIds[i] == bookId) {
+                applyHolder(holders, kinds[i], userIds[i]);
+            }
+        }
+        return holders;
+    }
+
+    /**
+     * Returns the IDs of users who held a copy of the book at any point in {@code [from, to)}.
+     */
+    public List<Integer> holdersBetween(int bookId, Instant from, Instant to) {
+        List<Integer> holders = new ArrayList<>(holdersAt(bookId, from.minusNanos(1)));
+        int end = eventsUpTo(to.minusNanos(1));
+        for (int i = eventsUpTo(from.minusNanos(1)); i < end; i++) {
+            if (bookIds[i] == bookId && kinds[i] == LOAN_OPENED && !holders.contains(userIds[i])) {
+                holders.add(userIds[i]);
+            }
+        }
+        return holders;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int checkpointCount() {
+        return checkpoints.size();
+    }
+
+    /**
+     * Returns the time of the first recorded event, or {@code null} if nothing has been recorded.
+     */
+    public Instant getStart() {
+        return size == 0 ? null : Instant.ofEpochMilli(times[0]);
+    }
+
+    private void append(byte kind, int bookId, int userId, int available) {
+        if (size == times.length) {
+            int capacity = size * 2;
+            times = Arrays.copyOf(times, capacity);
+            kinds = Arrays.copyOf(kinds, capacity);
+            bookIds = Arrays.copyOf(bookIds, capacity);
+            userIds = Arrays.copyOf(userIds, capacity);
+            availableAfter = Arrays.copyOf(availableAfter, capacity);
+        }
+        // Keep times non-decreasing even if the wall clock steps back, so lookups can binary search.
+        long now = System.currentTimeMillis();
+        times[size] = size == 0 ? now : Math.max(now, times[size - 1]);
+        kinds[size] = kind;
+        bookIds[size] = bookId;
+        userIds[size] = userId;
+        availableAfter[size] = available;
+        size++;
+        advance(size - 1);
+    }
+
+    private void advance(int index) {
+        current.apply(kinds[index], bookIds[index], userIds[index], availableAfter[index]);
+        eventsSinceCheckpoint++;
+        if (eventsSinceCheckpoint >= CHECKPOINT_INTERVAL) {
+            checkpoints.add(new Checkpoint(index + 1, current.snapshot()));
+            eventsSinceCheckpoint = 0;
+        }
+    }
+
+    /**
+     * Returns the number of events recorded at or before the given instant.
+     */
+    private int eventsUpTo(Instant at) {
+        long millis = at.toEpochMilli();
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (times[mid] <= millis) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private Checkpoint checkpointBefore(int eventCount) {
+        int low = 0;
+        int high = checkpoints.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (checkpoints.get(mid).eventIndex <= eventCount) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low == 0 ? null : checkpoints.get(low - 1);
+    }
+
+    private static void applyHolder(List<Integer> holders, byte kind, int userId) {
+        if (kind == LOAN_OPENED) {
+            holders.add(userId);
+        } else if (kind == LOAN_CLOSED) {
+            holders.remove(Integer.valueOf(userId));
+        } else if (kind == BOOK_REMOVED) {
+            holders.clear();
+        }
+    }
+
+    /**
+     * Writes trimmed copies of the event arrays, leaving the live arrays and their spare capacity alone.
+     */
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        int length = Math.max(size, 1);
+        ObjectOutputStream.PutField fields = out.putFields();
+        fields.put("times", Arrays.copyOf(times, length));
+        fields.put("kinds", Arrays.copyOf(kinds, length));
+        fields.put("bookIds", Arrays.copyOf(bookIds, length));
+        fields.put("userIds", Arrays.copyOf(userIds, length));
+        fields.put("availableAfter", Arrays.copyOf(availableAfter, length));
+        fields.put("size", size);
+        out.writeFields();
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        current = new State();
+        checkpoints = new ArrayList<>();
+        eventsSinceCheckpoint = 0;
+        for (int i = 0; i < size; i++) {
+            advance(i);
+        }
+    }
+
+    /**
+     * Availability and holders per book, in pages of 16 books. Available copies are stored plus one so
+     * that 0 means "not in the catalogue"; holder lists are never modified in place, only replaced, so
+     * pages can be shared with snapshots after a shallow copy.
+     */
+    private static final class State {
+        private static final int[] NO_HOLDERS = new int[0];
+
+        private int[][] available = new int[0][];
+        private int[][][] holders = new int[0][][];
+        private long[] ownedPages = new long[0];
+
+        private void apply(byte kind, int bookId, int userId, int availableCopies) {
+            int page = bookId >>> PAGE_SHIFT;
+            int slot = bookId & PAGE_MASK;
+            ownPage(page);
+            if (kind == BOOK_REMOVED) {
+                available[page][slot] = 0;
+                holders[page][slot] = null;
+                return;
+            }
+            available[page][slot] = availableCopies + 1;
+            if (kind == LOAN_OPENED) {
+                int[] users = holders[page][slot] == null ? NO_HOLDERS : holders[page][slot];
+                int[] added = Arrays.copyOf(users, users.length + 1);
+                added[users.length] = userId;
+                holders[page][slot] = added;
+            } else if (kind == LOAN_CLOSED && holders[page][slot] != null) {
+                holders[page][slot] = withoutFirst(holders[page][slot], userId);
+            }
+        }
+
+        private int available(int bookId) {
+            int page = bookId >>> PAGE_SHIFT;
+            if (page >= available.length || available[page] == null) {
+                return -1;
+            }
+            return available[page][bookId & PAGE_MASK] - 1;
+        }
+
+        private int[] holders(int bookId) {
+            int page = bookId >>> PAGE_SHIFT;
+            if (page >= holders.length || holders[page] == null || holders[page][bookId & PAGE_MASK] == null) {
+                return NO_HOLDERS;
+            }
+            return holders[page][bookId & PAGE_MASK];
+        }
+
+        /**
+         * Returns a read-only copy that shares every page with this state; pages are copied here on their next write.
+         */
+        private State snapshot() {
+            State snapshot = new State();
+            snapshot.available = available.clone();
+            snapshot.holders = holders.clone();
+            Arrays.fill(ownedPages, 0);
+            return snapshot;
+        }
+
+        private void ownPage(int page) {
+            if (page >= available.length) {
+                int pages = Math.max(page + 1, available.length * 2);
+                available = Arrays.copyOf(available, pages);
+                holders = Arrays.copyOf(holders, pages);
+                ownedPages = Arrays.copyOf(ownedPages, (pages + 63) / 64);
+            }
+            if ((ownedPages[page >>> 6] & (1L << page)) != 0) {
+                return;
+            }
+            available[page] = available[page] == null ? new int[PAGE_MASK + 1] : available[page].clone();
+            holders[page] = holders[page] == null ? new int[PAGE_MASK + 1][] : holders[page].clone();
+            ownedPages[page >>> 6] |= 1L << page;
+        }
+
+        private static int[] withoutFirst(int[] users, int userId) {
+            for (int i = 0; i < users.length; i++) {
+                if (users[i] == userId) {
+                    if (users.length == 1) {
+                        return null;
+                    }
+                    int[] remaining = new int[users.length - 1];
+                    System.arraycopy(users, 0, remaining, 0, i);
+                    System.arraycopy(users, i + 1, remaining, i, users.length - i - 1);
+                    return remaining;
+                }
+            }
+            return users;
+        }
+    }
+
+    private static final class Checkpoint {
+        private final int eventIndex;
+        private final State state;
+
+        private Checkpoint(int eventIndex, State state) {
+            this.eventIndex = eventIndex;
+            this.state = state;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.library.service;
+
+/**
+ * Point-in-time circulation figures for dashboards.
+ */
+public class CirculationStats {
+    private final long titles;
+    private final long totalCopies;
+    private final long copiesOnLoan;
+    private final long copiesAvailable;
+    private final long overdueLoans;
+    private final long members;
+    private final long membersAtLimit;
+
+    public CirculationStats(long titles, long totalCopies, long copiesOnLoan, long copiesAvailable,
+                            long overdueLoans, long members, long membersAtLimit) {
+        this.titles = titles;
+        this.totalCopies = totalCopies;
+        this.copiesOnLoan = copiesOnLoan;
+        this.copiesAvailable = copiesAvailable;
+        this.overdueLoans = overdueLoans;
+        this.members = members;
+        this.membersAtLimit = membersAtLimit;
+    }
+
+    public long getTitles() {
+        return titles;
+    }
+
+    public long getTotalCopies() {
+        return totalCopies;
+    }
+
+    public long getCopiesOnLoan() {
+        return copiesOnLoan;
+    }
+
+    public long getCopiesAvailable() {
+        return copiesAvailable;
+    }
+
+    public long getOverdueLoans() {
+        return overdueLoans;
+    }
+
+    public long getMembers() {
+        return members;
+    }
+
+    public long getMembersAtLimit() {
+        return membersAtLimit;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Titles: %d | Copies: %d (on loan %d, available %d) | Overdue loans: %d | Members: %d (at limit %d)",
+                titles, totalCopies, copiesOnLoan, copiesAvailable, overdueLoans, members, membersAtLimit);
+    }
+}
@@ -0,0 +1,534 @@
+package com.example.library.service;
+
+import com.example.library.model.Book;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Column-oriented, read-mostly copy of a catalogue for very large collections.
+ * <p>
+ * Instead of one {@link Book} object per title plus two map entries, each book is a row across
+ * primitive arrays: IDs, copy counts, an author dictionary code and offsets into a shared UTF-8
+ * byte pool holding titles, ISBNs and descriptions. ID and ISBN lookups use open-addressing tables of row
+ * numbers. Rows left behind by removals and updates are reclaimed once they make up half the table.
+ * <p>
+ * This is a standalone structure, not a storage backend for {@link Library}: the library, the console and
+ * persistence keep using their own maps, and a catalogue built with {@link #copyOf(Collection)} does not
+ * follow later changes to the library. {@link Book} instances are created only for the rows a caller
+ * asks for and are detached copies, so calling their setters changes nothing here; use
+ * {@link #updateBook}, {@link #borrowCopy(int)} and {@link #returnCopy(int)} instead. Lookup and search
+ * return the same results as the {@link Library} methods of the same name for the same data. Like
+ * {@link Library}, this class is not thread-safe.
+ */
+public class CompactCatalogue {
+    private static final int EMPTY = 0;
+    private static final int DELETED = -1;
+    private static final int REMOVED_ID = Integer.MIN_VALUE;
+
+    private int rows;
+    private int liveRows;
+    private int[] ids;
+    private int[] totalCopies;
+    private int[] availableCopies;
+    private int[] authorCodes;
+    // A row's fields are appended to the pool back to back, so each field ends where the next one starts.
+    private int[] titleOffsets;
+    private int[] isbnOffsets;
+    private int[] descriptionOffsets;
+    private long[] nonAsciiRows;
+    private byte[] pool;
+    private int poolLength;
+    private final List<String> authorNames = new ArrayList<>();
+    private final Map<String, Integer> authorCodesByName = new HashMap<>();
+    private int[] idTable;
+    private int[] isbnTable;
+    private int usedIdSlots;
+    private int usedIsbnSlots;
+
+    public CompactCatalogue() {
+        this(16);
+    }
+
+    public CompactCatalogue(int expectedBooks) {
+        int capacity = Math.max(16, expectedBooks);
+        ids = new int[capacity];
+        totalCopies = new int[capacity];
+        availableCopies = new int[capacity];
+        authorCodes = new int[capacity];
+        titleOffsets = new int[capacity];
+        isbnOffsets = new int[capacity];
+        descriptionOffsets = new int[capacity];
+        nonAsciiRows = new long[(capacity + 63) / 64];
+        pool = new byte[capacity * 32];
+        idTable = new int[tableSizeFor(capacity)];
+        isbnTable = new int[idTable.length];
+    }
+
+    /**
+     * Builds a compact copy of the given books, including their current availability.
+     */
+    public static CompactCatalogue copyOf(Collection<Book> books) {
+        CompactCatalogue catalogue = new CompactCatalogue(books.size());
+        for (Book book : books) {
+            catalogue.add(book.getId(), book.getTitle(), book.getAuthor(), book.getIsbn(),
+                    book.getTotalCopies(), book.getAvailableCopies(), book.getDescription());
+        }
+        catalogue.trimToSize();
+        return catalogue;
+    }
+
+    public void add(int id, String title, String author, String isbn, int total, int available, String description) {
+        // Validate through the same rules as the object model.
+        Book validated = new Book(id, title, author, Library.normalizeIsbn(isbn), total, description);
+        validated.setAvailableCopies(available);
+        if (rowOfId(id) >= 0) {
+            throw new IllegalArgumentException("Book with this ID already exists");
+        }
+        if (rowOfIsbn(validated.getIsbn()) >= 0) {
+            throw new IllegalArgumentException("Book with this ISBN already exists");
+        }
+        ensureRowCapacity();
+        if ((Math.max(usedIdSlots, usedIsbnSlots) + 1) * 2 > idTable.length) {
+            rehash(tableSizeFor(2 * (liveRows + 1)));
+        }
+        int row = rows++;
+        ids[row] = id;
+        totalCopies[row] = total;
+        availableCopies[row] = available;
+        authorCodes[row] = authorCode(validated.getAuthor());
+        titleOffsets[row] = poolLength;
+        boolean ascii = append(validated.getTitle());
+        isbnOffsets[row] = poolLength;
+        ascii &= append(validated.getIsbn());
+        descriptionOffsets[row] = poolLength;
+        ascii &= append(validated.getDescription());
+        if (!ascii) {
+            nonAsciiRows[row >>> 6] |= 1L << row;
+        }
+        liveRows++;
+        insert(row);
+    }
+
+    public boolean remove(int id) {
+        int row = rowOfId(id);
+        if (row < 0) {
+            return false;
+        }
+        if (availableCopies[row] < totalCopies[row]) {
+            throw new IllegalStateException("Cannot remove a book that is currently borrowed");
+        }
+        removeRow(row);
+        reclaimIfSparse();
+        return true;
+    }
+
+    /**
+     * Same rules as {@link Library#updateBook}: the ISBN must stay unique and the new total cannot drop
+     * below the copies on loan. The row is rewritten, so books returned earlier do not see the change.
+     */
+    public Optional<Book> updateBook(int bookId, String title, String author, String isbn, int total, String description) {
+        int row = rowOfId(bookId);
+        if (row < 0) {
+            return Optional.empty();
+        }
+        String normalizedIsbn = Library.normalizeIsbn(isbn);
+        int owner = rowOfIsbn(normalizedIsbn);
+        if (owner >= 0 && owner != row) {
+            throw new IllegalArgumentException("Another book already uses this ISBN");
+        }
+        int borrowed = totalCopies[row] - availableCopies[row];
+        // Validate through the same rules as the object model, with the copies currently on loan.
+        Book validated = new Book(bookId, title, author, normalizedIsbn, borrowed, description);
+        validated.setAvailableCopies(0);
+        validated.setTotalCopies(total);
+        removeRow(row);
+        add(bookId, title, author, normalizedIsbn, total, total - borrowed, description);
+        reclaimIfSparse();
+        return findBookById(bookId);
+    }
+
+    public Optional<Book> findBookById(int bookId) {
+        int row = rowOfId(bookId);
+        return row < 0 ? Optional.empty() : Optional.of(materialize(row));
+    }
+
+    public Optional<Book> findBookByIsbn(String isbn) {
+        int row = rowOfIsbn(Library.normalizeIsbn(isbn));
+        return row < 0 ? Optional.empty() : Optional.of(materialize(row));
+    }
+
+    public List<Book> listBooks() {
+        List<Book> books = new ArrayList<>(liveRows);
+        for (int row = 0; row < rows; row++) {
+            if (ids[row] != REMOVED_ID) {
+                books.add(materialize(row));
+            }
+        }
+        books.sort(Comparator.comparing(Book::getTitle));
+        return books;
+    }
+
+    /**
+     * Same matching rules as {@link Library#searchBooks(String)}, but scans the pool in place and only
+     * creates {@link Book} objects for matching rows.
+     */
+    public List<Book> searchBooks(String query) {
+        String lower = query.toLowerCase();
+        boolean[] authorMatches = matchAuthors(lower);
+        byte[] asciiQuery = asciiBytes(lower);
+        List<Book> matches = new ArrayList<>();
+        for (int row = 0; row < rows; row++) {
+            if (ids[row] != REMOVED_ID && matches(row, lower, asciiQuery, authorMatches)) {
+                matches.add(materialize(row));
+            }
+        }
+        matches.sort(Comparator.comparing(Book::getTitle));
+        return matches;
+    }
+
+    /**
+     * Counts books matching {@link #searchBooks(String)} without materializing any of them.
+     */
+    public int countMatches(String query) {
+        String lower = query.toLowerCase();
+        boolean[] authorMatches = matchAuthors(lower);
+        byte[] asciiQuery = asciiBytes(lower);
+        int count = 0;
+        for (int row = 0; row < rows; row++) {
+            if (ids[row] != REMOVED_ID && matches(row, lower, asciiQuery, authorMatches)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public boolean borrowCopy(int bookId) {
+        int row = rowOfId(bookId);
+        if (row < 0) {
+            return false;
+        }
+        if (availableCopies[row] == 0) {
+            throw new IllegalStateException("No copies available to borrow");
+        }
+        availableCopies[row]--;
+        return true;
+    }
+
+    public boolean returnCopy(int bookId) {
+        int row = rowOfId(bookId);
+        if (row < 0) {
+            return false;
+        }
+        if (availableCopies[row] >= totalCopies[row]) {
+            throw new IllegalStateException("All copies are already accounted for");
+        }
+        availableCopies[row]++;
+        return true;
+    }
+
+    public int size() {
+        return liveRows;
+    }
+
+    /**
+     * Releases spare capacity in the columns and pool, for catalogues that are loaded once and then mostly read.
+     */
+    public void trimToSize() {
+        if (liveRows < rows) {
+            reclaimRemovedRows();
+        }
+        int capacity = Math.max(16, rows);
+        resizeColumns(capacity);
+        pool = Arrays.copyOf(pool, poolLength);
+    }
+
+    /**
+     * Approximate heap used by the arrays and pool, excluding the author dictionary's map overhead.
+     */
+    public long estimatedBytes() {
+        long columns = 7L * ids.length * Integer.BYTES + (long) nonAsciiRows.length * Long.BYTES;
+        long tables = (long) (idTable.length + isbnTable.length) * Integer.BYTES;
+        long authors = 0;
+        for (String name : authorNames) {
+            authors += 40 + name.length();
+        }
+        return columns + tables + pool.length + authors;
+    }
+
+    private boolean matches(int row, String lowerQuery, byte[] asciiQuery, boolean[] authorMatches) {
+        if (authorMatches[authorCodes[row]]) {
+            return true;
+        }
+        int end = rowEnd(row);
+        if (asciiQuery != null && (nonAsciiRows[row >>> 6] & (1L << row)) == 0) {
+            // Fields are adjacent in the pool, so one pass per field keeps matches from spanning fields.
+            return containsAsciiIgnoreCase(titleOffsets[row], isbnOffsets[row], asciiQuery)
+                    || containsAsciiIgnoreCase(isbnOffsets[row], descriptionOffsets[row], asciiQuery)
+                    || containsAsciiIgnoreCase(descriptionOffsets[row], end, asciiQuery);
+        }
+        return decode(titleOffsets[row], isbnOffsets[row]).toLowerCase().contains(lowerQuery)
+                || decode(isbnOffsets[row], descriptionOffsets[row]).toLowerCase().contains(lowerQuery)
+                || decode(descriptionOffsets[row], end).toLowerCase().contains(lowerQuery);
+    }
+
+    private boolean[] matchAuthors(String lowerQuery) {
+        boolean[] matches = new boolean[authorNames.size()];
+        for (int code = 0; code < matches.length; code++) {
+            matches[code] = authorNames.get(code).toLowerCase().contains(lowerQuery);
+        }
+        return matches;
+    }
+
+    private Book materialize(int row) {
+        int end = rowEnd(row);
+        Book book = new Book(ids[row], decode(titleOffsets[row], isbnOffsets[row]), authorNames.get(authorCodes[row]),
+                decode(isbnOffsets[row], descriptionOffsets[row]), totalCopies[row], decode(descriptionOffsets[row], end));
+        book.setAvailableCopies(availableCopies[row]);
+        return book;
+    }
+
+    private int rowEnd(int row) {
+        return row + 1 < rows ? titleOffsets[row + 1] : poolLength;
+    }
+
+    private void removeRow(int row) {
+        isbnTable[slotOfIsbn(decode(isbnOffsets[row], descriptionOffsets[row]))] = DELETED;
+        idTable[slotOfId(ids[row])] = DELETED;
+        ids[row] = REMOVED_ID;
+        liveRows--;
+    }
+
+    private void reclaimIfSparse() {
+        if (rows >= 64 && liveRows < rows / 2) {
+            reclaimRemovedRows();
+        }
+    }
+
+    /**
+     * Moves live rows down over removed ones and copies their fields into a new pool, keeping row order.
+     */
+    private void reclaimRemovedRows() {
+        int liveBytes = 0;
+        for (int row = 0; row < rows; row++) {
+            if (ids[row] != REMOVED_ID) {
+                liveBytes += rowEnd(row) - titleOffsets[row];
+            }
+        }
+        byte[] compacted = new byte[Math.max(32, liveBytes)];
+        long[] nonAscii = new long[nonAsciiRows.length];
+        int target = 0;
+        int length = 0;
+        for (int row = 0; row < rows; row++) {
+            if (ids[row] == REMOVED_ID) {
+                continue;
+            }
+            // target <= row, so titleOffsets[row + 1], which rowEnd reads, has not been overwritten yet.
+            int start = titleOffsets[row];
+            int end = rowEnd(row);
+            int shift = length - start;
+            ids[target] = ids[row];
+            totalCopies[target] = totalCopies[row];
+            availableCopies[target] = availableCopies[row];
+            authorCodes[target] = authorCodes[row];
+            titleOffsets[target] = start + shift;
+            isbnOffsets[target] = isbnOffsets[row] + shift;
+            descriptionOffsets[target] = descriptionOffsets[row] + shift;
+            if ((nonAsciiRows[row >>> 6] & (1L << row)) != 0) {
+                nonAscii[target >>> 6] |= 1L << target;
+            }
+            System.arraycopy(pool, start, compacted, length, end - start);
+            length += end - start;
+            target++;
+        }
+        rows = target;
+        pool = compacted;
+        poolLength = length;
+        nonAsciiRows = nonAscii;
+        rehash(tableSizeFor(Math.max(1, liveRows)));
+    }
+
+    private int authorCode(String author) {
+        Integer code = authorCodesByName.get(author);
+        if (code == null) {
+            code = authorNames.size();
+            authorNames.add(author);
+            authorCodesByName.put(author, code);
+        }
+        return code;
+    }
+
+    private void ensureRowCapacity() {
+        if (rows == ids.length) {
+            resizeColumns(ids.length * 2);
+        }
+    }
+
+    private void resizeColumns(int capacity) {
+        ids = Arrays.copyOf(ids, capacity);
+        totalCopies = Arrays.copyOf(totalCopies, capacity);
+        availableCopies = Arrays.copyOf(availableCopies, capacity);
+        authorCodes = Arrays.copyOf(authorCodes, capacity);
+        titleOffsets = Arrays.copyOf(titleOffsets, capacity);
+        isbnOffsets = Arrays.copyOf(isbnOffsets, capacity);
+        descriptionOffsets = Arrays.copyOf(descriptionOffsets, capacity);
+        nonAsciiRows = Arrays.copyOf(nonAsciiRows, (capacity + 63) / 64);
+    }
+
+    /**
+     * Appends the UTF-8 form of a value to the pool and reports whether it was plain ASCII.
+     */
+    private boolean append(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (poolLength + bytes.length > pool.length) {
+            pool = Arrays.copyOf(pool, Math.max(poolLength + bytes.length, pool.length * 2));
+        }
+        System.arraycopy(bytes, 0, pool, poolLength, bytes.length);
+        poolLength += bytes.length;
+        return bytes.length == value.length();
+    }
+
+    private String decode(int start, int end) {
+        return new String(pool, start, end - start, StandardCharsets.UTF_8);
+    }
+
+    private boolean equalsAscii(int start, int end, String value) {
+        if (end - start != value.length()) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (pool[start + i] != value.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Matches {@code String.hashCode()} for ASCII content, which normalized ISBNs always are.
+     */
+    private int hashAscii(int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + pool[i];
+        }
+        return hash;
+    }
+
+    private boolean containsAsciiIgnoreCase(int start, int end, byte[] lowerQuery) {
+        int last = end - lowerQuery.length;
+        for (int i = start; i <= last; i++) {
+            int j = 0;
+            while (j < lowerQuery.length && toLowerAscii(pool[i + j]) == lowerQuery[j]) {
+                j++;
+            }
+            if (j == lowerQuery.length) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static byte toLowerAscii(byte value) {
+        return value >= 'A' && value <= 'Z' ? (byte) (value + ('a' - 'A')) : value;
+    }
+
+    /**
+     * Returns the query as bytes if it is plain ASCII, or {@code null} if the slower string path is needed.
+     */
+    private static byte[] asciiBytes(String lowerQuery) {
+        byte[] bytes = new byte[lowerQuery.length()];
+        for (int i = 0; i < bytes.length; i++) {
+            char c = lowerQuery.charAt(i);
+            if (c >= 0x80) {
+                return null;
+            }
+            bytes[i] = (byte) c;
+        }
+        return bytes;
+    }
+
+    // Hash tables hold row + 1; EMPTY ends a probe sequence, DELETED does not.
+
+    private int rowOfId(int id) {
+        int slot = slotOfId(id);
+        return slot < 0 ? -1 : idTable[slot] - 1;
+    }
+
+    private int rowOfIsbn(String isbn) {
+        int slot = slotOfIsbn(isbn);
+        return slot < 0 ? -1 : isbnTable[slot] - 1;
+    }
+
+    private int slotOfId(int id) {
+        int mask = idTable.length - 1;
+        for (int slot = mix(id) & mask; idTable[slot] != EMPTY; slot = (slot + 1) & mask) {
+            if (idTable[slot] != DELETED && ids[idTable[slot] - 1] == id) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    private int slotOfIsbn(String isbn) {
+        int mask = isbnTable.length - 1;
+        for (int slot = mix(isbn.hashCode()) & mask; isbnTable[slot] != EMPTY; slot = (slot + 1) & mask) {
+            int row = isbnTable[slot] - 1;
+            if (isbnTable[slot] != DELETED && equalsAscii(isbnOffsets[row], descriptionOffsets[row], isbn)) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    private void insert(int row) {
+        int mask = idTable.length - 1;
+        int slot = mix(ids[row]) & mask;
+        while (idTable[slot] > 0) {
+            slot = (slot + 1) & mask;
+        }
+        if (idTable[slot] == EMPTY) {
+            usedIdSlots++;
+        }
+        idTable[slot] = row + 1;
+        slot = mix(hashAscii(isbnOffsets[row], descriptionOffsets[row])) & mask;
+        while (isbnTable[slot] > 0) {
+            slot = (slot + 1) & mask;
+        }
+        if (isbnTable[slot] == EMPTY) {
+            usedIsbnSlots++;
+        }
+        isbnTable[slot] = row + 1;
+    }
+
+    private void rehash(int tableSize) {
+        idTable = new int[tableSize];
+        isbnTable = new int[tableSize];
+        usedIdSlots = 0;
+        usedIsbnSlots = 0;
+        for (int row = 0; row < rows; row++) {
+            if (ids[row] != REMOVED_ID) {
+                insert(row);
+            }
+        }
+    }
+
+    /**
+     * Returns a power-of-two table size that keeps the load factor at or below 1/2 for the given entries.
+     */
+    private static int tableSizeFor(int entries) {
+        return Math.max(16, Integer.highestOneBit(Math.max(1, entries * 2 - 1)) << 1);
+    }
+
+    private static int mix(int hash) {
+        int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.library.service;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Bloom filter over normalized ISBNs, used to skip catalogue lookups for ISBNs that are certainly new.
+ * <p>
+ * The filter is saved with the library and two filters with the same size can be merged, for example
+ * to combine the filters of several catalogue shards. Bloom filters cannot forget entries, so removed
+ * and replaced ISBNs are counted and {@link Library} rebuilds the filter from the catalogue once they
+ * make up a noticeable share of it, or once the filter holds more entries than it was sized for.
+ */
+public class IsbnBloomFilter implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final long[] bits;
+    private final int bitCount;
+    private final int hashCount;
+    private final int capacity;
+    private int insertions;
+    private int staleEntries;
+
+    /**
+     * @param capacity expected number of ISBNs
+     * @param falsePositiveRate target false-positive rate at that capacity, between 0 and 1
+     */
+    public IsbnBloomFilter(int capacity, double falsePositiveRate) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("False-positive rate must be between 0 and 1");
+        }
+        long optimalBits = (long) Math.ceil(-capacity * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        this.bitCount = (int) Math.min(Integer.MAX_VALUE - 63, Math.max(64, optimalBits));
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / capacity * Math.log(2)));
+        this.capacity = capacity;
+        this.bits = new long[(bitCount + 63) / 64];
+    }
+
+    public void put(String normalizedIsbn) {
+        long hash = hash(normalizedIsbn);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < hashCount; i++) {
+            int bit = Math.floorMod(h1 + i * h2, bitCount);
+            bits[bit >>> 6] |= 1L << bit;
+        }
+        insertions++;
+    }
+
+    /**
+     * Returns {@code false} only if the ISBN was never added; {@code true} means it may have been.
+     */
+    public boolean mightContain(String normalizedIsbn) {
+        long hash = hash(normalizedIsbn);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < hashCount; i++) {
+            int bit = Math.floorMod(h1 + i * h2, bitCount);
+            if ((bits[bit >>> 6] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Records that an ISBN added earlier is no longer in the catalogue.
+     */
+    public void markStale() {
+        staleEntries++;
+    }
+
+    /**
+     * Adds every ISBN from another filter of the same size into this one.
+     */
+    public void merge(IsbnBloomFilter other) {
+        if (other.bitCount != bitCount || other.hashCount != hashCount) {
+            throw new IllegalArgumentException("Only filters with the same size and hash count can be merged");
+        }
+        for (int i = 0; i < bits.length; i++) {
+            bits[i] |= other.bits[i];
+        }
+        insertions += other.insertions;
+        staleEntries += other.staleEntries;
+    }
+
+    /**
+     * Returns true once the filter is over capacity or a quarter of its entries are stale.
+     */
+    public boolean needsRebuild() {
+        return insertions > capacity || staleEntries * 4 > Math.max(insertions, 64);
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int getInsertions() {
+        return insertions;
+    }
+
+    public int getHashCount() {
+        return hashCount;
+    }
+
+    public long getMemoryBytes() {
+        return (long) bits.length * Long.BYTES;
+    }
+
+    /**
+     * Estimates the current false-positive rate from the fraction of bits set.
+     */
+    public double estimatedFalsePositiveRate() {
+        long setBits = Arrays.stream(bits).map(Long::bitCount).sum();
+        return Math.pow((double) setBits / bitCount, hashCount);
+    }
+
+    private static long hash(String value) {
+        // 64-bit FNV-1a, split into two 32-bit hashes for double hashing.
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        return hash | 1L << 32;
+    }
+}
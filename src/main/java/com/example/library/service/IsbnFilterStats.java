@@ -0,0 +1,78 @@
+package com.example.library.service;
+
+/**
+ * Snapshot of the ISBN Bloom filter's size, accuracy and effectiveness.
+ */
+public class IsbnFilterStats {
+    private final int capacity;
+    private final int insertions;
+    private final long memoryBytes;
+    private final double estimatedFalsePositiveRate;
+    private final long probes;
+    private final long definiteMisses;
+    private final long falsePositives;
+
+    public IsbnFilterStats(int capacity, int insertions, long memoryBytes, double estimatedFalsePositiveRate,
+                           long probes, long definiteMisses, long falsePositives) {
+        this.capacity = capacity;
+        this.insertions = insertions;
+        this.memoryBytes = memoryBytes;
+        this.estimatedFalsePositiveRate = estimatedFalsePositiveRate;
+        this.probes = probes;
+        this.definiteMisses = definiteMisses;
+        this.falsePositives = falsePositives;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int getInsertions() {
+        return insertions;
+    }
+
+    public long getMemoryBytes() {
+        return memoryBytes;
+    }
+
+    public double getEstimatedFalsePositiveRate() {
+        return estimatedFalsePositiveRate;
+    }
+
+    /**
+     * Number of ISBN checks made through the filter since the library was loaded.
+     */
+    public long getProbes() {
+        return probes;
+    }
+
+    /**
+     * Checks answered by the filter alone, without a catalogue lookup.
+     */
+    public long getDefiniteMisses() {
+        return definiteMisses;
+    }
+
+    /**
+     * Checks the filter passed on to the catalogue for an ISBN that turned out to be absent.
+     */
+    public long getFalsePositives() {
+        return falsePositives;
+    }
+
+    /**
+     * Share of absent ISBNs that the filter failed to rule out, or 0 if none were checked.
+     */
+    public double getObservedFalsePositiveRate() {
+        long absent = definiteMisses + falsePositives;
+        return absent == 0 ? 0 : (double) falsePositives / absent;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ISBN filter: %d/%d entries, %,d bytes, estimated FPR %.4f%%, observed FPR %.4f%% "
+                        + "(%d probes, %d answered by filter)",
+                insertions, capacity, memoryBytes, estimatedFalsePositiveRate * 100, getObservedFalsePositiveRate() * 100,
+                probes, definiteMisses);
+    }
+}
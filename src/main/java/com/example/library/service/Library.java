@@ -1,21 +1,30 @@
 package com.example.library.service;
 
+import com.example.library.events.ChangeFeed;
+import com.example.library.events.ChangeFeedView;
+import com.example.library.events.LibraryEvent;
 import com.example.library.model.Book;
 import com.example.library.model.LoanRecord;
 import com.example.library.model.Professor;
 import com.example.library.model.Student;
 import com.example.library.model.User;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.time.ZoneId;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.OptionalInt;
 import java.util.stream.Collectors;
 
 /**
@@ -23,6 +32,8 @@ import java.util.stream.Collectors;
  */
 public class Library implements Serializable {
     private static final long serialVersionUID = 2L;
+    private static final int MIN_ISBN_FILTER_CAPACITY = 1024;
+    private static final double ISBN_FILTER_FALSE_POSITIVE_RATE = 0.01;
 
     private final Map<Integer, Book> booksById = new LinkedHashMap<>();
     private final Map<String, Book> booksByIsbn = new LinkedHashMap<>();
@@ -30,15 +41,30 @@ public class Library implements Serializable {
     private final List<LoanRecord> loanRecords = new ArrayList<>();
     private int nextBookId = 1;
     private int nextUserId = 1;
+    private long lastEventSequence;
+    private CirculationHistory history = new CirculationHistory();
+    private IsbnBloomFilter isbnFilter = new IsbnBloomFilter(MIN_ISBN_FILTER_CAPACITY, ISBN_FILTER_FALSE_POSITIVE_RATE);
+    private transient AuthorIndex authorIndex = new AuthorIndex();
+    private transient UserDirectory userDirectory = new UserDirectory();
+    private transient ChangeFeed changeFeed = new ChangeFeed(0);
+    private transient CirculationCounters circulation = new CirculationCounters();
+    private transient long isbnProbes;
+    private transient long isbnFilterMisses;
+    private transient long isbnFilterFalsePositives;
 
     public Book addBook(String title, String author, String isbn, int totalCopies, String description) {
         String normalizedIsbn = normalizeIsbn(isbn);
-        if (booksByIsbn.containsKey(normalizedIsbn)) {
+        if (findIsbnOwner(normalizedIsbn) != null) {
             throw new IllegalArgumentException("Book with this ISBN already exists");
         }
-        Book book = new Book(nextBookId++, title, author, normalizedIsbn, totalCopies, description);
+        Book book = new Book(nextBookId++, title, authorIndex.canonicalize(author), normalizedIsbn, totalCopies, description);
         booksById.put(book.getId(), book);
         booksByIsbn.put(normalizedIsbn, book);
+        authorIndex.add(book);
+        circulation.bookAdded(book.getTotalCopies());
+        history.copiesChanged(book.getId(), book.getAvailableCopies());
+        addToIsbnFilter(normalizedIsbn);
+        publish(LibraryEvent.Type.BOOK_ADDED, book.getId(), -1);
         return book;
     }
 
@@ -48,17 +74,32 @@ public class Library implements Serializable {
             return Optional.empty();
         }
         String normalizedIsbn = normalizeIsbn(isbn);
-        Book existing = booksByIsbn.get(normalizedIsbn);
+        Book existing = findIsbnOwner(normalizedIsbn);
         if (existing != null && existing.getId() != bookId) {
             throw new IllegalArgumentException("Another book already uses this ISBN");
         }
+        // Validate on a scratch copy holding the current loans, so a rejected update touches nothing.
+        Book validated = new Book(bookId, title, author, normalizedIsbn, book.getBorrowedCopies(), description);
+        validated.setAvailableCopies(0);
+        validated.setTotalCopies(totalCopies);
         booksByIsbn.remove(book.getIsbn());
+        authorIndex.remove(book);
+        int previousCopies = book.getTotalCopies();
         book.setTitle(title);
-        book.setAuthor(author);
+        book.setAuthor(authorIndex.canonicalize(author));
         book.setIsbn(normalizedIsbn);
         book.setTotalCopies(totalCopies);
         book.setDescription(description);
         booksByIsbn.put(normalizedIsbn, book);
+        authorIndex.add(book);
+        circulation.copiesChanged(book.getTotalCopies() - previousCopies);
+        if (existing == null) {
+            // The book moved to a new ISBN; the old one stays in the filter until the next rebuild.
+            isbnFilter.markStale();
+            addToIsbnFilter(normalizedIsbn);
+        }
+        history.copiesChanged(bookId, book.getAvailableCopies());
+        publish(LibraryEvent.Type.BOOK_UPDATED, bookId, -1);
         return Optional.of(book);
     }
 
@@ -72,6 +113,12 @@ public class Library implements Serializable {
         }
         booksById.remove(bookId);
         booksByIsbn.remove(book.getIsbn());
+        authorIndex.remove(book);
+        circulation.bookRemoved(book.getTotalCopies());
+        history.bookRemoved(bookId);
+        isbnFilter.markStale();
+        rebuildIsbnFilterIfNeeded();
+        publish(LibraryEvent.Type.BOOK_REMOVED, bookId, -1);
         return true;
     }
 
@@ -100,15 +147,47 @@ public class Library implements Serializable {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Returns the books whose author matches the given name exactly, ignoring case and extra whitespace.
+     */
+    public List<Book> listBooksByAuthor(String author) {
+        return authorIndex.bookIds(author).stream()
+                .map(booksById::get)
+                .sorted(Comparator.comparing(Book::getTitle))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Returns every author in the catalogue with their title count and total/available copies.
+     */
+    public List<AuthorFacet> listAuthorFacets() {
+        return authorIndex.facets().stream()
+                .sorted(Comparator.comparing(AuthorFacet::getAuthor, String.CASE_INSENSITIVE_ORDER))
+                .collect(Collectors.toList());
+    }
+
+    public IsbnFilterStats getIsbnFilterStats() {
+        return new IsbnFilterStats(isbnFilter.getCapacity(), isbnFilter.getInsertions(), isbnFilter.getMemoryBytes(),
+                isbnFilter.estimatedFalsePositiveRate(), isbnProbes, isbnFilterMisses, isbnFilterFalsePositives);
+    }
+
     public User addStudent(String name, String email) {
+        requireUniqueEmail(email, -1);
         Student student = new Student(nextUserId++, name, email);
         usersById.put(student.getId(), student);
+        userDirectory.add(student);
+        circulation.memberAdded();
+        publish(LibraryEvent.Type.USER_ADDED, -1, student.getId());
         return student;
     }
 
     public User addProfessor(String name, String email) {
+        requireUniqueEmail(email, -1);
         Professor professor = new Professor(nextUserId++, name, email);
         usersById.put(professor.getId(), professor);
+        userDirectory.add(professor);
+        circulation.memberAdded();
+        publish(LibraryEvent.Type.USER_ADDED, -1, professor.getId());
         return professor;
     }
 
@@ -117,8 +196,15 @@ public class Library implements Serializable {
         if (user == null) {
             return Optional.empty();
         }
-        user.setName(name);
-        user.setEmail(email);
+        requireUniqueEmail(email, userId);
+        userDirectory.remove(user);
+        try {
+            user.setName(name);
+            user.setEmail(email);
+        } finally {
+            userDirectory.add(user);
+        }
+        publish(LibraryEvent.Type.USER_UPDATED, -1, userId);
         return Optional.of(user);
     }
 
@@ -131,6 +217,9 @@ public class Library implements Serializable {
             throw new IllegalStateException("User must return all books before removal");
         }
         usersById.remove(userId);
+        userDirectory.remove(user);
+        circulation.memberRemoved();
+        publish(LibraryEvent.Type.USER_REMOVED, -1, userId);
         return true;
     }
 
@@ -144,6 +233,21 @@ public class Library implements Serializable {
         return Optional.ofNullable(usersById.get(userId));
     }
 
+    public Optional<User> findUserByEmail(String email) {
+        Integer userId = userDirectory.findByEmail(email);
+        return userId == null ? Optional.empty() : Optional.ofNullable(usersById.get(userId));
+    }
+
+    /**
+     * Returns users whose full name, or any later word of it, starts with the given prefix (case-insensitive).
+     */
+    public List<User> searchUsersByName(String prefix) {
+        return userDirectory.findByNamePrefix(prefix).stream()
+                .map(usersById::get)
+                .sorted(Comparator.comparing(User::getName))
+                .collect(Collectors.toList());
+    }
+
     public boolean borrowBookByIsbn(int userId, String isbn) {
         User user = usersById.get(userId);
         Book book = booksByIsbn.get(normalizeIsbn(isbn));
@@ -170,7 +274,15 @@ public class Library implements Serializable {
         }
         user.borrowBook(book.getId());
         book.borrowCopy();
-        loanRecords.add(new LoanRecord(book.getId(), user.getId(), LocalDate.now(), calculateDueDate(user)));
+        authorIndex.availabilityChanged(book, -1);
+        LoanRecord loan = new LoanRecord(book.getId(), user.getId(), LocalDate.now(), calculateDueDate(user));
+        loanRecords.add(loan);
+        circulation.loanOpened(loan.getDueDate());
+        history.loanOpened(book.getId(), user.getId(), book.getAvailableCopies());
+        if (user.getBorrowedCount() == user.getMaxBooksAllowed()) {
+            circulation.memberReachedLimit();
+        }
+        publish(LibraryEvent.Type.LOAN_OPENED, book.getId(), user.getId());
     }
 
     public boolean returnBookByIsbn(int userId, String isbn) {
@@ -187,27 +299,193 @@ public class Library implements Serializable {
         if (user == null || book == null) {
             return false;
         }
+        boolean wasAtLimit = user.getBorrowedCount() >= user.getMaxBooksAllowed();
         user.returnBook(book.getId());
         book.returnCopy();
-        loanRecords.removeIf(record -> record.getBookId() == bookId && record.getUserId() == userId);
+        authorIndex.availabilityChanged(book, 1);
+        LoanRecord closed = removeLoanRecord(bookId, userId);
+        circulation.loanClosed(closed == null ? null : closed.getDueDate());
+        history.loanClosed(bookId, userId, book.getAvailableCopies());
+        if (wasAtLimit) {
+            circulation.memberLeftLimit();
+        }
+        publish(LibraryEvent.Type.LOAN_CLOSED, bookId, userId);
         return true;
     }
 
+    /**
+     * Returns current circulation totals. The figures are maintained incrementally, so this does not
+     * scan the catalogue and may be called from another thread while the library is in use.
+     */
+    public CirculationStats getCirculationStats() {
+        return circulation.snapshot(LocalDate.now());
+    }
+
+    /**
+     * Returns how many copies of the book were available at the given instant, or empty if the book was
+     * not in the catalogue then or the instant predates recorded history.
+     */
+    public OptionalInt getAvailableCopiesAt(int bookId, Instant at) {
+        return history.availableCopiesAt(bookId, at);
+    }
+
+    /**
+     * Returns the IDs of users who held a copy of the book at the given instant.
+     */
+    public List<Integer> getHoldersAt(int bookId, Instant at) {
+        return history.holdersAt(bookId, at);
+    }
+
+    /**
+     * Returns the IDs of users who held a copy of the book at any time on the given day (system time zone).
+     */
+    public List<Integer> getHoldersOn(int bookId, LocalDate date) {
+        ZoneId zone = ZoneId.systemDefault();
+        return history.holdersBetween(bookId, date.atStartOfDay(zone).toInstant(), date.plusDays(1).atStartOfDay(zone).toInstant());
+    }
+
+    /**
+     * Returns when circulation history starts, or empty if nothing has been recorded yet.
+     */
+    public Optional<Instant> getHistoryStart() {
+        return Optional.ofNullable(history.getStart());
+    }
+
     public List<LoanRecord> getLoanRecords() {
         return Collections.unmodifiableList(loanRecords);
     }
 
+    /**
+     * Returns the ordered feed of changes made to this library. Sequence numbers continue across save and load.
+     * The feed belongs to the library: consumers can subscribe and cancel their own subscriptions, but not close it.
+     */
+    public ChangeFeedView getChangeFeed() {
+        return changeFeed.view();
+    }
+
     public void syncCounters() {
         nextBookId = booksById.keySet().stream().mapToInt(Integer::intValue).max().orElse(0) + 1;
         nextUserId = usersById.keySet().stream().mapToInt(Integer::intValue).max().orElse(0) + 1;
     }
 
+    private void rebuildIndexes() {
+        authorIndex = new AuthorIndex();
+        for (Book book : booksById.values()) {
+            book.setAuthor(authorIndex.canonicalize(book.getAuthor()));
+            authorIndex.add(book);
+        }
+        userDirectory = new UserDirectory();
+        usersById.values().forEach(userDirectory::add);
+        circulation = new CirculationCounters();
+        for (Book book : booksById.values()) {
+            circulation.bookAdded(book.getTotalCopies());
+            circulation.copiesOnLoanAdded(book.getBorrowedCopies());
+        }
+        for (User user : usersById.values()) {
+            circulation.memberAdded();
+            if (user.getBorrowedCount() >= user.getMaxBooksAllowed()) {
+                circulation.memberReachedLimit();
+            }
+        }
+        // Files written before every loan had a record undercount the records, so the books are authoritative.
+        loanRecords.forEach(loan -> circulation.dueDateAdded(loan.getDueDate()));
+        if (isbnFilter == null) {
+            rebuildIsbnFilter();
+        }
+        if (history == null) {
+            // Libraries saved before history was recorded start their history from the current state.
+            history = new CirculationHistory();
+            booksById.values().forEach(book -> history.copiesChanged(book.getId(), book.getAvailableCopies()));
+            for (LoanRecord loan : loanRecords) {
+                Book book = booksById.get(loan.getBookId());
+                if (book != null) {
+                    history.loanOpened(book.getId(), loan.getUserId(), book.getAvailableCopies());
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the book holding this ISBN, consulting the catalogue only when the Bloom filter cannot rule it out.
+     */
+    private Book findIsbnOwner(String normalizedIsbn) {
+        isbnProbes++;
+        if (!isbnFilter.mightContain(normalizedIsbn)) {
+            isbnFilterMisses++;
+            return null;
+        }
+        Book book = booksByIsbn.get(normalizedIsbn);
+        if (book == null) {
+            isbnFilterFalsePositives++;
+        }
+        return book;
+    }
+
+    private void addToIsbnFilter(String normalizedIsbn) {
+        isbnFilter.put(normalizedIsbn);
+        rebuildIsbnFilterIfNeeded();
+    }
+
+    private void rebuildIsbnFilterIfNeeded() {
+        if (isbnFilter.needsRebuild()) {
+            rebuildIsbnFilter();
+        }
+    }
+
+    private void rebuildIsbnFilter() {
+        isbnFilter = new IsbnBloomFilter(Math.max(MIN_ISBN_FILTER_CAPACITY, booksByIsbn.size() * 2), ISBN_FILTER_FALSE_POSITIVE_RATE);
+        booksByIsbn.keySet().forEach(isbnFilter::put);
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        rebuildIndexes();
+        changeFeed = new ChangeFeed(lastEventSequence);
+    }
+
+    private void publish(LibraryEvent.Type type, int bookId, int userId) {
+        long sequence = lastEventSequence + 1;
+        changeFeed.publish(new LibraryEvent(sequence, type, bookId, userId, Instant.now()));
+        lastEventSequence = sequence;
+    }
+
+    /**
+     * Removes the oldest loan record for this user and book; a user may hold several copies of one title.
+     */
+    private LoanRecord removeLoanRecord(int bookId, int userId) {
+        Iterator<LoanRecord> iterator = loanRecords.iterator();
+        while (iterator.hasNext()) {
+            LoanRecord record = iterator.next();
+            if (record.getBookId() == bookId && record.getUserId() == userId) {
+                iterator.remove();
+                return record;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Rejects an email held by another user. A user keeping their own email is always allowed, even if an
+     * older data file gave the same email to someone else.
+     */
+    private void requireUniqueEmail(String email, int userId) {
+        User user = usersById.get(userId);
+        String normalized = UserDirectory.normalizeEmail(Objects.requireNonNull(email, "email"));
+        if (user != null && UserDirectory.normalizeEmail(user.getEmail()).equals(normalized)) {
+            return;
+        }
+        Integer existing = userDirectory.findByEmail(email);
+        if (existing != null && existing != userId) {
+            throw new IllegalArgumentException("A user with this email already exists");
+        }
+    }
+
     private LocalDate calculateDueDate(User user) {
         int loanDuration = user instanceof Professor ? 28 : 14;
         return LocalDate.now().plusDays(loanDuration);
     }
 
-    private String normalizeIsbn(String isbn) {
+    static String normalizeIsbn(String isbn) {
         return Objects.requireNonNull(isbn, "isbn").replaceAll("[^0-9Xx]", "").toUpperCase();
     }
 }
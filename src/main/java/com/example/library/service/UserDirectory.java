@@ -0,0 +1,111 @@
+package com.example.library.service;
+
+import com.example.library.model.User;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Lookup indexes over library members: a hash index on normalized email and a sorted index of name
+ * keys for prefix search.
+ * <p>
+ * A name is indexed under the full name and under each word from the second onwards, so "smi"
+ * and "john sm" both match "John Smith".
+ * <p>
+ * Files saved before emails had to be unique can hold several users with one email. Every one of them
+ * is indexed: the first under the email, the rest in a side table, so none of them loses its entry.
+ */
+class UserDirectory {
+    private final Map<String, Integer> idsByEmail = new HashMap<>();
+    private final Map<String, Set<Integer>> duplicateIdsByEmail = new HashMap<>();
+    private final NavigableMap<String, Set<Integer>> idsByNameKey = new TreeMap<>();
+
+    static String normalizeEmail(String email) {
+        return email == null ? "" : email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Returns the ID of the user registered with this email, or {@code null}. If several users share it,
+     * the one indexed first is returned.
+     */
+    Integer findByEmail(String email) {
+        return idsByEmail.get(normalizeEmail(email));
+    }
+
+    /**
+     * Indexes a user. If another user already holds the email, the existing entry is kept and this
+     * user is recorded as a duplicate.
+     */
+    void add(User user) {
+        String email = normalizeEmail(user.getEmail());
+        Integer existing = idsByEmail.putIfAbsent(email, user.getId());
+        if (existing != null && existing != user.getId()) {
+            duplicateIdsByEmail.computeIfAbsent(email, k -> new TreeSet<>()).add(user.getId());
+        }
+        for (String key : nameKeys(user.getName())) {
+            idsByNameKey.computeIfAbsent(key, k -> new LinkedHashSet<>()).add(user.getId());
+        }
+    }
+
+    void remove(User user) {
+        String email = normalizeEmail(user.getEmail());
+        Set<Integer> duplicates = duplicateIdsByEmail.get(email);
+        if (duplicates == null || !duplicates.remove(user.getId())) {
+            if (idsByEmail.remove(email, user.getId()) && duplicates != null) {
+                Integer next = duplicates.iterator().next();
+                duplicates.remove(next);
+                idsByEmail.put(email, next);
+            }
+        }
+        if (duplicates != null && duplicates.isEmpty()) {
+            duplicateIdsByEmail.remove(email);
+        }
+        for (String key : nameKeys(user.getName())) {
+            Set<Integer> ids = idsByNameKey.get(key);
+            if (ids != null) {
+                ids.remove(user.getId());
+                if (ids.isEmpty()) {
+                    idsByNameKey.remove(key);
+                }
+            }
+        }
+    }
+
+    Set<Integer> findByNamePrefix(String prefix) {
+        String normalized = normalizeName(prefix);
+        if (normalized.isEmpty()) {
+            return Collections.emptySet();
+        }
+        Set<Integer> ids = new LinkedHashSet<>();
+        idsByNameKey.subMap(normalized, true, normalized + Character.MAX_VALUE, false)
+                .values()
+                .forEach(ids::addAll);
+        return ids;
+    }
+
+    private Set<String> nameKeys(String name) {
+        String normalized = normalizeName(name);
+        Set<String> keys = new LinkedHashSet<>();
+        if (normalized.isEmpty()) {
+            return keys;
+        }
+        keys.add(normalized);
+        int space = normalized.indexOf(' ');
+        while (space >= 0) {
+            keys.add(normalized.substring(space + 1));
+            space = normalized.indexOf(' ', space + 1);
+        }
+        return keys;
+    }
+
+    private static String normalizeName(String name) {
+        return name == null ? "" : name.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.library.workload;
+
+import com.example.library.model.Book;
+import com.example.library.service.CompactCatalogue;
+import com.example.library.service.Library;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compares heap footprint and full-scan search speed of {@link Library} against {@link CompactCatalogue}
+ * for the same generated catalogue.
+ * <p>
+ * The object-model figure covers only what holds the books themselves: the {@link Book} objects, their
+ * strings (author names shared as {@code Library} shares them) and the by-ID and by-ISBN maps. The author
+ * index, ISBN filter, circulation history and change feed that a {@code Library} also keeps are excluded.
+ * <p>
+ * Usage: {@code java -Xmx8g -cp out com.example.library.workload.CatalogueFootprintBenchmark [titles] [rounds]}.
+ * Heap figures come from {@link Runtime} after explicit garbage collections, so they are approximate.
+ */
+public class CatalogueFootprintBenchmark {
+    private static final String[] QUERIES = {"river", "hopper", "volume 7", "978000001", "no-such-term"};
+
+    public static void main(String[] args) {
+        int titles = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        Library library = new WorkloadGenerator(titles, 1, 0.0, 1.0, 42).populate(new Library());
+        List<Book> books = library.listBooks();
+
+        long baseline = usedHeap();
+        Map<?, ?>[] bookMaps = copyBookMaps(books);
+        long libraryBytes = usedHeap() - baseline;
+
+        CompactCatalogue compact = CompactCatalogue.copyOf(books);
+        long compactBytes = usedHeap() - baseline - libraryBytes;
+
+        System.out.printf("Titles: %,d%n", bookMaps[0].size());
+        System.out.printf("Object model heap:  %,d bytes (%.1f bytes/title, book maps only)%n",
+                libraryBytes, (double) libraryBytes / titles);
+        System.out.printf("Compact heap:       %,d bytes (%.1f bytes/title, estimated %,d)%n",
+                compactBytes, (double) compactBytes / titles, compact.estimatedBytes());
+
+        for (String query : QUERIES) {
+            int expected = library.searchBooks(query).size();
+            if (compact.countMatches(query) != expected) {
+                throw new IllegalStateException("Result mismatch for query: " + query);
+            }
+        }
+        System.out.printf("Object model scan:  %.1f ms/query%n", timeScans(rounds, query -> library.searchBooks(query).size()));
+        System.out.printf("Compact scan:       %.1f ms/query%n", timeScans(rounds, compact::countMatches));
+        System.out.printf("Compact search:     %.1f ms/query (including Book materialization)%n",
+                timeScans(rounds, query -> compact.searchBooks(query).size()));
+    }
+
+    /**
+     * Rebuilds the book maps of a {@link Library} from fresh copies, so their size can be measured on its own.
+     */
+    private static Map<?, ?>[] copyBookMaps(List<Book> books) {
+        Map<String, String> authors = new HashMap<>();
+        Map<Integer, Book> booksById = new LinkedHashMap<>();
+        Map<String, Book> booksByIsbn = new LinkedHashMap<>();
+        for (Book book : books) {
+            String author = authors.computeIfAbsent(book.getAuthor(), String::new);
+            Book copy = new Book(book.getId(), new String(book.getTitle()), author, new String(book.getIsbn()),
+                    book.getTotalCopies(), book.getDescription() == null ? null : new String(book.getDescription()));
+            booksById.put(copy.getId(), copy);
+            booksByIsbn.put(copy.getIsbn(), copy);
+        }
+        authors.clear();
+        return new Map<?, ?>[] {booksById, booksByIsbn};
+    }
+
+    private static double timeScans(int rounds, Search search) {
+        long sink = 0;
+        for (String query : QUERIES) {
+            sink += search.count(query);
+        }
+        long start = System.nanoTime();
+        for (int round = 0; round < rounds; round++) {
+            for (String query : QUERIES) {
+                sink += search.count(query);
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        if (sink < 0) {
+            System.out.println(sink);
+        }
+        return elapsed / 1e6 / (rounds * QUERIES.length);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private interface Search {
+        int count(String query);
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.library.workload;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Collects per-operation latencies and outcomes. Each worker thread owns one recorder; they are merged at the end.
+ */
+public class LatencyRecorder {
+    private final Map<OperationType, long[]> samples = new EnumMap<>(OperationType.class);
+    private final Map<OperationType, Integer> sampleCounts = new EnumMap<>(OperationType.class);
+    private final Map<OperationType, Integer> rejectedCounts = new EnumMap<>(OperationType.class);
+
+    public void record(OperationType type, long nanos, boolean succeeded) {
+        int count = sampleCounts.getOrDefault(type, 0);
+        long[] values = samples.computeIfAbsent(type, key -> new long[1024]);
+        if (count == values.length) {
+            values = Arrays.copyOf(values, count * 2);
+            samples.put(type, values);
+        }
+        values[count] = nanos;
+        sampleCounts.put(type, count + 1);
+        if (!succeeded) {
+            rejectedCounts.merge(type, 1, Integer::sum);
+        }
+    }
+
+    public void merge(LatencyRecorder other) {
+        other.sampleCounts.forEach((type, count) -> {
+            long[] values = other.samples.get(type);
+            for (int i = 0; i < count; i++) {
+                record(type, values[i], true);
+            }
+        });
+        other.rejectedCounts.forEach((type, count) -> rejectedCounts.merge(type, count, Integer::sum));
+    }
+
+    public int count(OperationType type) {
+        return sampleCounts.getOrDefault(type, 0);
+    }
+
+    public int totalCount() {
+        return sampleCounts.values().stream().mapToInt(Integer::intValue).sum();
+    }
+
+    public int rejected(OperationType type) {
+        return rejectedCounts.getOrDefault(type, 0);
+    }
+
+    /**
+     * Returns the latency in nanoseconds at the given percentile (0-100), or 0 if nothing was recorded.
+     */
+    public long percentile(OperationType type, double percentile) {
+        int count = count(type);
+        if (count == 0) {
+            return 0;
+        }
+        long[] sorted = Arrays.copyOf(samples.get(type), count);
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile / 100.0 * count) - 1;
+        return sorted[Math.max(0, Math.min(index, count - 1))];
+    }
+}
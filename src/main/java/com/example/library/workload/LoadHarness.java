@@ -0,0 +1,299 @@
+package com.example.library.workload;
+
+import com.example.library.model.User;
+import com.example.library.persistence.LibraryStorage;
+import com.example.library.service.Library;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drives a synthetic or recorded workload against a {@link Library} from many threads and reports
+ * throughput and latency percentiles.
+ * <p>
+ * {@link Library} is not thread-safe, so every operation runs under a single harness lock, just as a
+ * multi-client front end would have to. Measured latency therefore includes time spent waiting for the lock.
+ * <p>
+ * Usage: {@code java -cp out com.example.library.workload.LoadHarness [--titles=N] [--members=N]
+ * [--professors=RATIO] [--zipf=S] [--seed=N] [--threads=N] [--ops=N] [--mix=search=60,borrow=20,...]
+ * [--record=FILE] [--replay=FILE]}
+ */
+public class LoadHarness {
+    private static final String TRACE_HEADER = "# library-trace v1";
+
+    private final Library library;
+    private final LibraryStorage storage;
+    private final Object lock = new Object();
+    private final AtomicLong sequence = new AtomicLong();
+    private final Map<Long, TraceEntry> recorded;
+
+    public LoadHarness(Library library, LibraryStorage storage, boolean record) {
+        this.library = library;
+        this.storage = storage;
+        this.recorded = record ? new ConcurrentSkipListMap<>() : null;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        Path replayPath = options.containsKey("replay") ? Paths.get(options.get("replay")) : null;
+        List<TraceEntry> replay = null;
+        if (replayPath != null) {
+            Map<String, String> header = new HashMap<>();
+            replay = readTrace(replayPath, header);
+            // The trace only makes sense against the catalogue it was recorded on, so its header wins.
+            for (Map.Entry<String, String> entry : header.entrySet()) {
+                String given = options.get(entry.getKey());
+                if (given != null && !sameValue(given, entry.getValue())) {
+                    throw new IllegalArgumentException(String.format("--%s=%s conflicts with the trace header (%s=%s)",
+                            entry.getKey(), given, entry.getKey(), entry.getValue()));
+                }
+                options.put(entry.getKey(), entry.getValue());
+            }
+        }
+        WorkloadGenerator generator = new WorkloadGenerator(
+                Integer.parseInt(options.getOrDefault("titles", "10000")),
+                Integer.parseInt(options.getOrDefault("members", "5000")),
+                Double.parseDouble(options.getOrDefault("professors", "0.1")),
+                Double.parseDouble(options.getOrDefault("zipf", "1.0")),
+                Long.parseLong(options.getOrDefault("seed", "42")));
+        int threads = Integer.parseInt(options.getOrDefault("threads", String.valueOf(Runtime.getRuntime().availableProcessors())));
+        int operations = Integer.parseInt(options.getOrDefault("ops", "200000"));
+        OperationMix mix = options.containsKey("mix") ? OperationMix.parse(options.get("mix")) : OperationMix.defaultMix();
+
+        Path savePath = Files.createTempFile("library-load", ".dat");
+        try {
+            long buildStart = System.nanoTime();
+            Library library = generator.populate(new Library());
+            System.out.printf("Built %d titles and %d members in %.1f ms%n", generator.getTitleCount(),
+                    generator.getMemberCount(), (System.nanoTime() - buildStart) / 1e6);
+
+            LoadHarness harness = new LoadHarness(library, new LibraryStorage(savePath), options.containsKey("record"));
+            LatencyRecorder result;
+            long start = System.nanoTime();
+            if (replay != null) {
+                System.out.printf("Replaying %d operations from %s on %d threads%n", replay.size(), replayPath, threads);
+                result = harness.replay(replay, threads);
+            } else {
+                System.out.printf("Running %d operations (%s) on %d threads%n", operations, mix, threads);
+                result = harness.generate(generator, mix, operations, threads);
+            }
+            long elapsed = System.nanoTime() - start;
+            printReport(System.out, result, elapsed);
+
+            if (options.containsKey("record")) {
+                Path tracePath = Paths.get(options.get("record"));
+                harness.writeTrace(tracePath, generator);
+                System.out.println("Trace written to " + tracePath);
+            }
+        } finally {
+            Files.deleteIfExists(savePath);
+        }
+    }
+
+    /**
+     * Runs {@code operations} generated operations spread evenly across {@code threads} workers.
+     */
+    public LatencyRecorder generate(WorkloadGenerator generator, OperationMix mix, int operations, int threads)
+            throws InterruptedException {
+        AtomicInteger remaining = new AtomicInteger(operations);
+        return runWorkers(threads, worker -> {
+            Random random = new Random(generator.getSeed() * 31 + worker);
+            LatencyRecorder recorder = new LatencyRecorder();
+            while (remaining.getAndDecrement() > 0) {
+                execute(generator.nextOperation(random, mix), recorder);
+            }
+            return recorder;
+        });
+    }
+
+    /**
+     * Replays a recorded trace. Workers take entries in trace order, so the execution order stays close
+     * to the original even though it is not identical.
+     */
+    public LatencyRecorder replay(List<TraceEntry> trace, int threads) throws InterruptedException {
+        AtomicInteger next = new AtomicInteger();
+        return runWorkers(threads, worker -> {
+            LatencyRecorder recorder = new LatencyRecorder();
+            int index;
+            while ((index = next.getAndIncrement()) < trace.size()) {
+                execute(trace.get(index), recorder);
+            }
+            return recorder;
+        });
+    }
+
+    public void writeTrace(Path path, WorkloadGenerator generator) throws IOException {
+        if (recorded == null) {
+            throw new IllegalStateException("Harness was not created with recording enabled");
+        }
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            writer.write(TRACE_HEADER);
+            writer.newLine();
+            writer.write(String.format("# titles=%d members=%d professors=%s zipf=%s seed=%d",
+                    generator.getTitleCount(), generator.getMemberCount(), generator.getProfessorRatio(),
+                    generator.getZipfExponent(), generator.getSeed()));
+            writer.newLine();
+            for (TraceEntry entry : recorded.values()) {
+                writer.write(entry.toLine());
+                writer.newLine();
+            }
+        }
+    }
+
+    /**
+     * Reads a trace file. Generator settings from its header are copied into {@code header}.
+     */
+    public static List<TraceEntry> readTrace(Path path, Map<String, String> header) throws IOException {
+        List<TraceEntry> entries = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line = reader.readLine();
+            if (!TRACE_HEADER.equals(line)) {
+                throw new IOException("Not a library trace file: " + path);
+            }
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith("#")) {
+                    for (String token : line.substring(1).trim().split("\\s+")) {
+                        String[] pair = token.split("=", 2);
+                        if (pair.length == 2) {
+                            header.put(pair[0], pair[1]);
+                        }
+                    }
+                } else if (!line.isBlank()) {
+                    entries.add(TraceEntry.parse(line));
+                }
+            }
+        }
+        return entries;
+    }
+
+    private void execute(TraceEntry entry, LatencyRecorder recorder) {
+        long start = System.nanoTime();
+        boolean succeeded;
+        synchronized (lock) {
+            TraceEntry resolved = resolve(entry);
+            succeeded = resolved != null && apply(resolved);
+            if (recorded != null && resolved != null) {
+                recorded.put(sequence.getAndIncrement(), resolved);
+            }
+        }
+        recorder.record(entry.getType(), System.nanoTime() - start, succeeded);
+    }
+
+    /**
+     * Fills in the book for generated returns from the user's current loans; returns null when there is nothing to return.
+     */
+    private TraceEntry resolve(TraceEntry entry) {
+        if (entry.getType() != OperationType.RETURN || !entry.getArgument().isEmpty()) {
+            return entry;
+        }
+        Optional<User> user = library.findUser(entry.getUserId());
+        if (user.isEmpty() || user.get().getBorrowedBookIds().isEmpty()) {
+            return null;
+        }
+        return new TraceEntry(OperationType.RETURN, entry.getUserId(), String.valueOf(user.get().getBorrowedBookIds().get(0)));
+    }
+
+    private boolean apply(TraceEntry entry) {
+        try {
+            switch (entry.getType()) {
+                case SEARCH:
+                    library.searchBooks(entry.getArgument());
+                    return true;
+                case BORROW:
+                    return library.borrowBookByIsbn(entry.getUserId(), entry.getArgument());
+                case RETURN:
+                    return library.returnBookById(entry.getUserId(), Integer.parseInt(entry.getArgument()));
+                case LIST:
+                    library.listBooks();
+                    return true;
+                case SAVE:
+                    storage.save(library);
+                    return true;
+                default:
+                    throw new IllegalArgumentException("Unsupported operation: " + entry.getType());
+            }
+        } catch (IllegalArgumentException | IllegalStateException ex) {
+            // Business-rule rejections (no copies, borrow limit, unknown loan) are expected under load.
+            return false;
+        }
+    }
+
+    private LatencyRecorder runWorkers(int threads, Worker worker) throws InterruptedException {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("Thread count must be positive");
+        }
+        LatencyRecorder[] results = new LatencyRecorder[threads];
+        Thread[] workers = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            int index = i;
+            workers[i] = new Thread(() -> results[index] = worker.run(index), "load-worker-" + i);
+            workers[i].start();
+        }
+        LatencyRecorder merged = new LatencyRecorder();
+        for (int i = 0; i < threads; i++) {
+            workers[i].join();
+            if (results[i] != null) {
+                merged.merge(results[i]);
+            }
+        }
+        return merged;
+    }
+
+    private static void printReport(PrintStream out, LatencyRecorder result, long elapsedNanos) {
+        out.printf("%-8s %10s %10s %10s %10s %10s%n", "op", "count", "rejected", "p50(us)", "p99(us)", "p999(us)");
+        for (OperationType type : OperationType.values()) {
+            if (result.count(type) == 0) {
+                continue;
+            }
+            out.printf("%-8s %10d %10d %10.1f %10.1f %10.1f%n", type.name().toLowerCase(), result.count(type),
+                    result.rejected(type), result.percentile(type, 50) / 1e3, result.percentile(type, 99) / 1e3,
+                    result.percentile(type, 99.9) / 1e3);
+        }
+        double seconds = elapsedNanos / 1e9;
+        out.printf("Total: %d ops in %.2f s (%.0f ops/s)%n", result.totalCount(), seconds, result.totalCount() / seconds);
+    }
+
+    private static boolean sameValue(String first, String second) {
+        try {
+            return new BigDecimal(first).compareTo(new BigDecimal(second)) == 0;
+        } catch (NumberFormatException ex) {
+            return first.equals(second);
+        }
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--")) {
+                throw new IllegalArgumentException("Unrecognised argument: " + arg);
+            }
+            String[] pair = arg.substring(2).split("=", 2);
+            options.put(pair[0], pair.length > 1 ? pair[1] : "");
+        }
+        return options;
+    }
+
+    private interface Worker {
+        LatencyRecorder run(int workerIndex);
+    }
+}
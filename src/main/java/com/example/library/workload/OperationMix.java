@@ -0,0 +1,72 @@
+package com.example.library.workload;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Relative weights of each operation type in a generated workload.
+ */
+public class OperationMix {
+    private final Map<OperationType, Integer> weights;
+    private final int totalWeight;
+
+    public OperationMix(Map<OperationType, Integer> weights) {
+        this.weights = new EnumMap<>(OperationType.class);
+        int total = 0;
+        for (Map.Entry<OperationType, Integer> entry : weights.entrySet()) {
+            if (entry.getValue() < 0) {
+                throw new IllegalArgumentException("Weight cannot be negative: " + entry.getKey());
+            }
+            this.weights.put(entry.getKey(), entry.getValue());
+            total += entry.getValue();
+        }
+        if (total == 0) {
+            throw new IllegalArgumentException("At least one operation must have a positive weight");
+        }
+        this.totalWeight = total;
+    }
+
+    public static OperationMix defaultMix() {
+        return parse("search=60,borrow=18,return=15,list=5,save=2");
+    }
+
+    /**
+     * Parses a mix such as {@code search=60,borrow=20,return=20}. Omitted operations get weight zero.
+     */
+    public static OperationMix parse(String spec) {
+        Map<OperationType, Integer> weights = new EnumMap<>(OperationType.class);
+        for (String part : spec.split(",")) {
+            String[] pair = part.trim().split("=");
+            if (pair.length != 2) {
+                throw new IllegalArgumentException("Invalid mix entry: " + part);
+            }
+            weights.put(OperationType.valueOf(pair[0].trim().toUpperCase(Locale.ROOT)), Integer.parseInt(pair[1].trim()));
+        }
+        return new OperationMix(weights);
+    }
+
+    public OperationType pick(Random random) {
+        int roll = random.nextInt(totalWeight);
+        for (Map.Entry<OperationType, Integer> entry : weights.entrySet()) {
+            roll -= entry.getValue();
+            if (roll < 0) {
+                return entry.getKey();
+            }
+        }
+        throw new IllegalStateException("Mix weights are inconsistent");
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        weights.forEach((type, weight) -> {
+            if (sb.length() > 0) {
+                sb.append(',');
+            }
+            sb.append(type.name().toLowerCase(Locale.ROOT)).append('=').append(weight);
+        });
+        return sb.toString();
+    }
+}
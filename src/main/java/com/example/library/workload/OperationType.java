@@ -0,0 +1,12 @@
+package com.example.library.workload;
+
+/**
+ * Library operations that the load harness can drive.
+ */
+public enum OperationType {
+    SEARCH,
+    BORROW,
+    RETURN,
+    LIST,
+    SAVE
+}
@@ -0,0 +1,40 @@
+package com.example.library.workload;
+
+/**
+ * A single recorded operation with the arguments it was executed with.
+ */
+public class TraceEntry {
+    private final OperationType type;
+    private final int userId;
+    private final String argument;
+
+    public TraceEntry(OperationType type, int userId, String argument) {
+        this.type = type;
+        this.userId = userId;
+        this.argument = argument == null ? "" : argument;
+    }
+
+    public OperationType getType() {
+        return type;
+    }
+
+    public int getUserId() {
+        return userId;
+    }
+
+    public String getArgument() {
+        return argument;
+    }
+
+    public String toLine() {
+        return type + "\t" + userId + "\t" + argument;
+    }
+
+    public static TraceEntry parse(String line) {
+        String[] parts = line.split("\t", 3);
+        if (parts.length < 2) {
+            throw new IllegalArgumentException("Malformed trace line: " + line);
+        }
+        return new TraceEntry(OperationType.valueOf(parts[0]), Integer.parseInt(parts[1]), parts.length > 2 ? parts[2] : "");
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.library.workload;
+
+import com.example.library.service.Library;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Builds synthetic catalogues and member bases and generates operations against them.
+ * <p>
+ * Title popularity and author productivity both follow a Zipfian distribution. The same seed always
+ * produces the same catalogue, which lets a recorded trace be replayed against an identical library.
+ */
+public class WorkloadGenerator {
+    private static final String[] ADJECTIVES = {
+            "Silent", "Hidden", "Broken", "Golden", "Distant", "Modern", "Ancient", "Applied", "Quiet", "Crimson",
+            "Practical", "Endless", "Northern", "Digital", "Fragile", "Electric", "Wild", "Secret", "Last", "First"
+    };
+    private static final String[] NOUNS = {
+            "River", "Algorithms", "Empire", "Garden", "Mechanics", "Kingdom", "Statistics", "Ocean", "Harvest", "Compiler",
+            "Biology", "Winter", "Economics", "Machine", "Chemistry", "Forest", "Memory", "Theory", "Journey", "Signals"
+    };
+    private static final String[] FIRST_NAMES = {
+            "Ada", "Alan", "Grace", "Edsger", "Barbara", "Donald", "Frances", "John", "Margaret", "Niklaus",
+            "Radia", "Ken", "Sophie", "Tim", "Katherine", "Dennis", "Hedy", "Leslie", "Mary", "Claude"
+    };
+    private static final String[] LAST_NAMES = {
+            "Lovelace", "Turing", "Hopper", "Dijkstra", "Liskov", "Knuth", "Allen", "McCarthy", "Hamilton", "Wirth",
+            "Perlman", "Thompson", "Wilson", "Berners-Lee", "Johnson", "Ritchie", "Lamarr", "Lamport", "Shaw", "Shannon"
+    };
+
+    private final int titleCount;
+    private final int memberCount;
+    private final double professorRatio;
+    private final double zipfExponent;
+    private final long seed;
+    private final List<String> isbns = new ArrayList<>();
+    private final List<String> searchTerms = new ArrayList<>();
+    private final List<Integer> userIds = new ArrayList<>();
+    private ZipfDistribution titlePopularity;
+
+    public WorkloadGenerator(int titleCount, int memberCount, double professorRatio, double zipfExponent, long seed) {
+        if (titleCount <= 0 || memberCount <= 0) {
+            throw new IllegalArgumentException("Title and member counts must be positive");
+        }
+        if (professorRatio < 0 || professorRatio > 1) {
+            throw new IllegalArgumentException("Professor ratio must be between 0 and 1");
+        }
+        this.titleCount = titleCount;
+        this.memberCount = memberCount;
+        this.professorRatio = professorRatio;
+        this.zipfExponent = zipfExponent;
+        this.seed = seed;
+    }
+
+    /**
+     * Fills an empty library with the generated catalogue and members.
+     */
+    public Library populate(Library library) {
+        Random random = new Random(seed);
+        ZipfDistribution authorProductivity = new ZipfDistribution(Math.max(1, titleCount / 8), zipfExponent);
+        isbns.clear();
+        searchTerms.clear();
+        userIds.clear();
+        for (int i = 0; i < titleCount; i++) {
+            String adjective = ADJECTIVES[random.nextInt(ADJECTIVES.length)];
+            String noun = NOUNS[random.nextInt(NOUNS.length)];
+            String isbn = String.format("978%010d", i);
+            library.addBook(adjective + " " + noun + " " + (i + 1), authorName(authorProductivity.sample(random)),
+                    isbn, 1 + random.nextInt(5), "Volume " + (i % 12 + 1) + " of the " + noun.toLowerCase() + " series");
+            isbns.add(isbn);
+            searchTerms.add(random.nextBoolean() ? adjective.toLowerCase() : noun);
+        }
+        // Shuffle so popularity is not correlated with insertion order or ISBN.
+        Collections.shuffle(isbns, random);
+        Collections.shuffle(searchTerms, random);
+        for (int i = 0; i < memberCount; i++) {
+            String name = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)] + " " + LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+            String email = "member" + (i + 1) + "@example.edu";
+            int id = random.nextDouble() < professorRatio
+                    ? library.addProfessor(name, email).getId()
+                    : library.addStudent(name, email).getId();
+            userIds.add(id);
+        }
+        titlePopularity = new ZipfDistribution(titleCount, zipfExponent);
+        return library;
+    }
+
+    /**
+     * Generates the next operation. Returns are emitted without a book; the harness picks one of the
+     * user's current loans when it executes the operation.
+     */
+    public TraceEntry nextOperation(Random random, OperationMix mix) {
+        if (titlePopularity == null) {
+            throw new IllegalStateException("populate must be called before generating operations");
+        }
+        OperationType type = mix.pick(random);
+        int userId = userIds.get(random.nextInt(userIds.size()));
+        switch (type) {
+            case SEARCH:
+                return new TraceEntry(type, userId, searchTerms.get(titlePopularity.sample(random)));
+            case BORROW:
+                return new TraceEntry(type, userId, isbns.get(titlePopularity.sample(random)));
+            default:
+                return new TraceEntry(type, userId, "");
+        }
+    }
+
+    public int getTitleCount() {
+        return titleCount;
+    }
+
+    public int getMemberCount() {
+        return memberCount;
+    }
+
+    public double getProfessorRatio() {
+        return professorRatio;
+    }
+
+    public double getZipfExponent() {
+        return zipfExponent;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    private String authorName(int rank) {
+        String first = FIRST_NAMES[rank % FIRST_NAMES.length];
+        String last = LAST_NAMES[(rank / FIRST_NAMES.length) % LAST_NAMES.length];
+        int generation = rank / (FIRST_NAMES.length * LAST_NAMES.length);
+        return generation == 0 ? first + " " + last : first + " " + last + " " + (generation + 1);
+    }
+}
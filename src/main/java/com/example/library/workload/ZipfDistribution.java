@@ -0,0 +1,35 @@
+package com.example.library.workload;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Samples ranks in {@code [0, size)} with Zipfian skew, so a few items are picked far more often than the rest.
+ */
+public class ZipfDistribution {
+    private final double[] cumulative;
+
+    public ZipfDistribution(int size, double exponent) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("Size must be positive");
+        }
+        if (exponent < 0) {
+            throw new IllegalArgumentException("Exponent cannot be negative");
+        }
+        cumulative = new double[size];
+        double sum = 0;
+        for (int rank = 0; rank < size; rank++) {
+            sum += 1.0 / Math.pow(rank + 1, exponent);
+            cumulative[rank] = sum;
+        }
+        for (int rank = 0; rank < size; rank++) {
+            cumulative[rank] /= sum;
+        }
+    }
+
+    public int sample(Random random) {
+        int index = Arrays.binarySearch(cumulative, random.nextDouble());
+        int rank = index >= 0 ? index : -index - 1;
+        return Math.min(rank, cumulative.length - 1);
+    }
+}